@@ -0,0 +1,333 @@
+package mint.event;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link UniversalEventManager#dispatchEvent(Event)}.
+ * 
+ * <p>
+ * Each benchmark is run for every combination of the number of registered
+ * handlers, whether the handlers are spread across every
+ * {@link EventPriority} or all share {@link EventPriority#NORMAL}, and the
+ * {@link Kind kind} of the dispatched event.
+ * </p>
+ * 
+ * <p>
+ * The benchmarks are built by the Maven project of the <tt>bench</tt>
+ * directory, which compiles them along with the library, and are run with:
+ * </p>
+ * 
+ * <pre>
+ * mvn -f bench/pom.xml package
+ * java -jar bench/target/benchmarks.jar EventDispatchBenchmark
+ * </pre>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+
+	/**
+	 * The number of registered handlers.
+	 */
+	@Param({ "0", "1", "10", "1000" })
+	public int handlers;
+
+	/**
+	 * Whether the handlers are spread across every priority.
+	 */
+	@Param({ "false", "true" })
+	public boolean priorities;
+
+	/**
+	 * The kind of the dispatched events.
+	 */
+	@Param({ "PLAIN", "CANCELLABLE", "CANCELLED" })
+	public Kind kind;
+
+	/**
+	 * The event manager under benchmark.
+	 */
+	private UniversalEventManager manager;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		manager = new UniversalEventManager();
+		for (int i = 0; i < handlers; i++) {
+			manager.registerListener(priorities ? listener(i)
+					: new NormalListener());
+		}
+	}
+
+	/**
+	 * Dispatches an event from a single thread.
+	 * 
+	 * @param events
+	 *            The events of the benchmarking thread.
+	 * @return The number of handler invocations so far.
+	 */
+	@Benchmark
+	public int dispatch(Events events) {
+		return dispatch(events.get(kind));
+	}
+
+	/**
+	 * Dispatches an event from several threads at once, contending on the
+	 * same event manager.
+	 * 
+	 * @param events
+	 *            The events of the benchmarking thread.
+	 * @return The number of handler invocations so far.
+	 */
+	@Benchmark
+	@Threads(4)
+	public int dispatchContended(Events events) {
+		return dispatch(events.get(kind));
+	}
+
+	/**
+	 * Dispatches an event.
+	 * 
+	 * @param event
+	 *            The event to dispatch.
+	 * @return The number of handler invocations so far.
+	 */
+	private int dispatch(CountedEvent event) {
+		manager.dispatchEvent(event);
+		return event.count();
+	}
+
+	/**
+	 * Returns a listener whose priority is chosen by its index.
+	 * 
+	 * @param index
+	 *            The index of the listener.
+	 * @return A new listener of the priority at <tt>index</tt> modulo the
+	 *         number of priorities.
+	 */
+	private static EventListener listener(int index) {
+		switch (index % 6) {
+		case 0:
+			return new HighestListener();
+		case 1:
+			return new HighListener();
+		case 2:
+			return new NormalListener();
+		case 3:
+			return new LowListener();
+		case 4:
+			return new LowestListener();
+		default:
+			return new MonitorListener();
+		}
+	}
+
+	/**
+	 * The kinds of dispatched event.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	public enum Kind {
+
+		/**
+		 * An event which is not cancellable.
+		 */
+		PLAIN,
+
+		/**
+		 * A cancellable event which is never cancelled, so every handler
+		 * still checks whether it has been.
+		 */
+		CANCELLABLE,
+
+		/**
+		 * A cancellable event which is cancelled before it is dispatched, so
+		 * every handler is skipped.
+		 */
+		CANCELLED
+
+	}
+
+	/**
+	 * The events dispatched by a single benchmarking thread, so that threads
+	 * do not share the events they count into.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	@State(Scope.Thread)
+	public static class Events {
+
+		/**
+		 * The non-cancellable event.
+		 */
+		private final PlainEvent plain = new PlainEvent();
+
+		/**
+		 * The cancellable event, which is never cancelled.
+		 */
+		private final CancellableCountedEvent cancellable = new CancellableCountedEvent();
+
+		/**
+		 * The cancellable event which is cancelled before every dispatch.
+		 */
+		private final CancellableCountedEvent cancelled = new CancellableCountedEvent();
+
+		/**
+		 * Retrieves the event to dispatch.
+		 * 
+		 * @param kind
+		 *            The kind of the event.
+		 * @return The event to dispatch.
+		 */
+		private CountedEvent get(Kind kind) {
+			switch (kind) {
+			case PLAIN:
+				return plain;
+			case CANCELLABLE:
+				return cancellable;
+			default:
+				cancelled.setCancelled(true);
+				return cancelled;
+			}
+		}
+
+	}
+
+	/**
+	 * An event which counts how many times it has been handled.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	public interface CountedEvent extends Event {
+
+		/**
+		 * Records that the event has been handled.
+		 */
+		void handle();
+
+		/**
+		 * Retrieves how many times the event has been handled.
+		 * 
+		 * @return The number of times the event has been handled.
+		 */
+		int count();
+
+	}
+
+	/**
+	 * A non-cancellable counted event.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	public static final class PlainEvent implements CountedEvent {
+
+		private int count;
+
+		@Override
+		public void handle() {
+			count++;
+		}
+
+		@Override
+		public int count() {
+			return count;
+		}
+
+	}
+
+	/**
+	 * A cancellable counted event.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	public static final class CancellableCountedEvent extends CancellableEvent
+			implements CountedEvent {
+
+		private int count;
+
+		@Override
+		public void handle() {
+			count++;
+		}
+
+		@Override
+		public int count() {
+			return count;
+		}
+
+	}
+
+	public static final class HighestListener implements EventListener {
+
+		@EventHandler(priority = EventPriority.HIGHEST)
+		public void on(CountedEvent event) {
+			event.handle();
+		}
+
+	}
+
+	public static final class HighListener implements EventListener {
+
+		@EventHandler(priority = EventPriority.HIGH)
+		public void on(CountedEvent event) {
+			event.handle();
+		}
+
+	}
+
+	public static final class NormalListener implements EventListener {
+
+		@EventHandler
+		public void on(CountedEvent event) {
+			event.handle();
+		}
+
+	}
+
+	public static final class LowListener implements EventListener {
+
+		@EventHandler(priority = EventPriority.LOW)
+		public void on(CountedEvent event) {
+			event.handle();
+		}
+
+	}
+
+	public static final class LowestListener implements EventListener {
+
+		@EventHandler(priority = EventPriority.LOWEST)
+		public void on(CountedEvent event) {
+			event.handle();
+		}
+
+	}
+
+	public static final class MonitorListener implements EventListener {
+
+		@EventHandler(priority = EventPriority.MONITOR)
+		public void on(CountedEvent event) {
+			event.handle();
+		}
+
+	}
+
+}
@@ -0,0 +1,116 @@
+package mint;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Static utility methods which use virtual threads where the running Java
+ * platform supports them.
+ * 
+ * <p>
+ * Virtual threads are looked up reflectively so that the library can still
+ * run on platforms which predate them. Every method falls back in the same
+ * way: when virtual threads do not exist, or exist but are disabled (e.g. as
+ * a preview feature), they behave as if there were no virtual threads.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class VirtualThreads extends NotConstructable {
+
+	/**
+	 * A handle to <tt>Executors.newVirtualThreadPerTaskExecutor()</tt>, or
+	 * <tt>null</tt> if the runtime predates it.
+	 */
+	private static final MethodHandle NEW_EXECUTOR = find(Executors.class,
+			"newVirtualThreadPerTaskExecutor", true,
+			methodType(ExecutorService.class));
+
+	/**
+	 * A handle to <tt>Thread.isVirtual()</tt>, or <tt>null</tt> if the runtime
+	 * predates it.
+	 */
+	private static final MethodHandle IS_VIRTUAL = find(Thread.class,
+			"isVirtual", false, methodType(boolean.class));
+
+	/**
+	 * Creates a new executor which runs every task on a new virtual thread.
+	 * 
+	 * @return The new executor, or <tt>null</tt> if virtual threads are not
+	 *         supported.
+	 */
+	@Nullable
+	public static ExecutorService newExecutor() {
+		if (NEW_EXECUTOR == null) {
+			return null;
+		}
+		try {
+			return (ExecutorService) NEW_EXECUTOR.invokeExact();
+		} catch (Throwable t) {
+			// Virtual threads exist, but are disabled
+			return null;
+		}
+	}
+
+	/**
+	 * Determines whether the given thread is a virtual thread.
+	 * 
+	 * @param thread
+	 *            The thread to check.
+	 * @return Whether or not the thread is virtual, which is never the case if
+	 *         virtual threads are not supported.
+	 */
+	public static boolean isVirtual(Thread thread) {
+		if (IS_VIRTUAL == null) {
+			return false;
+		}
+		try {
+			return (boolean) IS_VIRTUAL.invokeExact(thread);
+		} catch (Throwable t) {
+			return false;
+		}
+	}
+
+	/**
+	 * Looks up a public method which may not exist on the running platform.
+	 * 
+	 * @param type
+	 *            The class which declares the method.
+	 * @param name
+	 *            The name of the method.
+	 * @param isStatic
+	 *            Whether or not the method is <tt>static</tt>.
+	 * @param signature
+	 *            The type of the method, excluding any receiver.
+	 * @return A handle to the method, or <tt>null</tt> if it does not exist.
+	 */
+	private static MethodHandle find(Class<?> type, String name,
+			boolean isStatic, MethodType signature) {
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		try {
+			return isStatic ? lookup.findStatic(type, name, signature)
+					: lookup.findVirtual(type, name, signature);
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * <tt>VirtualThreads</tt> is a static-utility class and should therefore
+	 * never be constructed.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             If construction occurs.
+	 */
+	private VirtualThreads() {
+		super();
+	}
+
+}
@@ -1,9 +1,13 @@
 package mint.event;
 
-import static mint.collect.Iterables.filter;
+import static mint.Preconditions.checkNotNull;
 
-import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.lang.ref.Reference;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import mint.Nullable;
 
 /**
  * An abstract implementation of {@link EventManager} which provides an
@@ -19,19 +23,51 @@ public abstract class AbstractEventManager implements EventManager {
 	 */
 	private final EventRegistry registry;
 
+	/**
+	 * The executor which runs asynchronous event dispatches.
+	 */
+	private final Executor asyncExecutor;
+
 	/**
 	 * Constructs an event manager, requiring an already-existing registry.
 	 * 
 	 * @param registry
 	 *            The registry of the event manager, used to map event listeners
 	 *            to the event handlers that they contain.
+	 * @param asyncExecutor
+	 *            The executor which runs asynchronous event dispatches.
+	 */
+	public AbstractEventManager(EventRegistry registry, Executor asyncExecutor) {
+		this.registry = checkNotNull(registry);
+		this.asyncExecutor = checkNotNull(asyncExecutor);
+	}
+
+	/**
+	 * Constructs an event manager, requiring an already-existing registry and
+	 * running asynchronous dispatches on the {@link EventExecutors#shared()}
+	 * executor.
+	 * 
+	 * @param registry
+	 *            The registry of the event manager, used to map event listeners
+	 *            to the event handlers that they contain.
 	 */
 	public AbstractEventManager(EventRegistry registry) {
-		this.registry = registry;
+		this(registry, EventExecutors.shared());
 	}
 
 	/**
-	 * Constructs an event manager, suppling a new {@link HashMap} as the
+	 * Constructs an event manager, suppling a new {@link EventRegistry} as the
+	 * registry.
+	 * 
+	 * @param asyncExecutor
+	 *            The executor which runs asynchronous event dispatches.
+	 */
+	public AbstractEventManager(Executor asyncExecutor) {
+		this(new EventRegistry(), asyncExecutor);
+	}
+
+	/**
+	 * Constructs an event manager, suppling a new {@link EventRegistry} as the
 	 * registry.
 	 */
 	public AbstractEventManager() {
@@ -48,22 +84,106 @@ public abstract class AbstractEventManager implements EventManager {
 		return registry;
 	}
 
+	/**
+	 * Retrieves the executor which runs asynchronous event dispatches.
+	 * 
+	 * @return The event manager's {@link #asyncExecutor}.
+	 */
+	protected final Executor getAsyncExecutor() {
+		return asyncExecutor;
+	}
+
+	/**
+	 * Retrieves the executor which runs event handlers of the given
+	 * execution.
+	 * 
+	 * @param execution
+	 *            An off-thread execution.
+	 * @return The executor which runs event handlers of the given execution.
+	 * @throws IllegalArgumentException
+	 *             If the execution is {@link EventExecution#INLINE}.
+	 */
+	protected final Executor getExecutor(EventExecution execution) {
+		switch (execution) {
+		case POOLED:
+			return getAsyncExecutor();
+		case VIRTUAL:
+			return EventExecutors.isVirtualSupported() ? EventExecutors
+					.virtual() : getAsyncExecutor();
+		default:
+			throw new IllegalArgumentException(execution
+					+ " event handlers have no executor");
+		}
+	}
+
+	@Override
+	public <E extends Event> Future<E> dispatchAsync(final E event) {
+		checkNotNull(event);
+
+		FutureTask<E> task = new FutureTask<E>(new Runnable() {
+
+			@Override
+			public void run() {
+				dispatchEvent(event);
+			}
+
+		}, event);
+		getAsyncExecutor().execute(task);
+		return task;
+	}
+
 	@Override
-	@SuppressWarnings("unchecked")
 	public final void registerListener(EventListener listener) {
-		for (Method method : filter(listener.getClass().getMethods(),
-				EventHandlerPredicate.instance())) {
-			EventHandler eventHandler = method
-					.getAnnotation(EventHandler.class);
-			/*
-			 * Unchecked cast suppressed because it is better to throw an
-			 * exception, as it clearly signals something is wrong with the
-			 * specified event handler.
-			 */
+		register(checkNotNull(listener), null, false);
+	}
+
+	@Override
+	public final void registerListener(EventListener listener, Object key) {
+		register(checkNotNull(listener), checkNotNull(key), false);
+	}
+
+	@Override
+	public final void registerWeakListener(EventListener listener) {
+		register(checkNotNull(listener), null, true);
+	}
+
+	@Override
+	public final void registerWeakListener(EventListener listener, Object key) {
+		register(checkNotNull(listener), checkNotNull(key), true);
+	}
+
+	@Override
+	public final void unregisterListener(EventListener listener) {
+		getRegistry().unregister(checkNotNull(listener));
+	}
+
+	/**
+	 * Registers every event handler of an event listener.
+	 * 
+	 * <p>
+	 * The event handlers are found through the listener type's
+	 * {@link EventHandlerTable}, so listener types with a table generated at
+	 * compile time are registered without reflection.
+	 * </p>
+	 * 
+	 * @param listener
+	 *            The event listener to register.
+	 * @param key
+	 *            The key of the events which the listener handles, or
+	 *            <tt>null</tt> if it handles events regardless of their key.
+	 * @param weak
+	 *            Whether or not the listener should be weakly held.
+	 */
+	private void register(EventListener listener, @Nullable Object key,
+			boolean weak) {
+		Reference<EventListener> reference = weak ? getRegistry()
+				.createWeakReference(listener) : null;
+		for (EventHandlerDefinition definition : EventHandlerTables.forType(
+				listener.getClass()).getDefinitions()) {
 			getRegistry().register(
-					(Class<? extends Event>) method.getParameterTypes()[0],
-					eventHandler.priority(), eventHandler.ignoreCancelled(),
-					method, listener);
+					definition.getEventType(),
+					weak ? new RegisteredHandler(reference, definition, key)
+							: new RegisteredHandler(listener, definition, key));
 		}
 	}
 
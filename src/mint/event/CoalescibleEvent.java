@@ -0,0 +1,33 @@
+package mint.event;
+
+/**
+ * An {@link Event} which describes the latest state of something, so that a
+ * pending event may be replaced by a newer one with an equal coalescing key
+ * without handlers missing anything.
+ * 
+ * <p>
+ * Coalescing only occurs when dispatching through a
+ * {@link CoalescingEventManager}, which holds coalescible events until it is
+ * {@link CoalescingEventManager#flush() flushed}.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public interface CoalescibleEvent extends Event {
+
+	/**
+	 * Retrieves the coalescing key of the event, such as the identifier of the
+	 * entity whose state the event describes.
+	 * 
+	 * <p>
+	 * Pending events of the same class with equal coalescing keys are
+	 * coalesced, so keys should implement {@link Object#equals(Object)} along
+	 * with {@link Object#hashCode()}.
+	 * </p>
+	 * 
+	 * @return The coalescing key of the event, or <tt>null</tt> to coalesce
+	 *         with every pending event of the same class without a key.
+	 */
+	Object getCoalescingKey();
+
+}
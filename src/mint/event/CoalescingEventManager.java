@@ -0,0 +1,165 @@
+package mint.event;
+
+import static mint.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mint.Nullable;
+import mint.Objects;
+
+/**
+ * An event manager which holds {@link CoalescibleEvent}s until it is
+ * {@link #flush() flushed}, keeping only the latest pending event of each
+ * class and coalescing key.
+ * 
+ * <p>
+ * Flushing once per dispatch window, such as a tick, means that handlers run
+ * once per key with the latest state rather than once for every intermediate
+ * state. Coalescible events are flushed in the order that their keys first
+ * became pending. Events which are not coalescible, and coalescible events
+ * dispatched with {@link #dispatchAsync(Event)}, are passed to the delegate
+ * immediately.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class CoalescingEventManager extends ForwardingEventManager {
+
+	/**
+	 * The latest pending event of each class and coalescing key.
+	 */
+	private Map<PendingKey, Event> pending = new LinkedHashMap<PendingKey, Event>();
+
+	/**
+	 * Constructs a new coalescing event manager.
+	 * 
+	 * @param delegate
+	 *            The event manager which dispatches flushed events.
+	 */
+	public CoalescingEventManager(EventManager delegate) {
+		super(checkNotNull(delegate));
+	}
+
+	@Override
+	public void dispatchEvent(Event event) {
+		checkNotNull(event);
+
+		if (event instanceof CoalescibleEvent) {
+			coalesce((CoalescibleEvent) event);
+		} else {
+			super.dispatchEvent(event);
+		}
+	}
+
+	@Override
+	public void dispatchAll(Collection<? extends Event> events) {
+		checkNotNull(events);
+
+		List<Event> immediate = new ArrayList<Event>(events.size());
+		for (Event event : events) {
+			if (checkNotNull(event) instanceof CoalescibleEvent) {
+				coalesce((CoalescibleEvent) event);
+			} else {
+				immediate.add(event);
+			}
+		}
+		if (!immediate.isEmpty()) {
+			super.dispatchAll(immediate);
+		}
+	}
+
+	/**
+	 * Dispatches every pending event, ending the dispatch window.
+	 * 
+	 * <p>
+	 * Events which are dispatched while flushing, including by the handlers
+	 * of flushed events, are held until the next flush.
+	 * </p>
+	 */
+	public void flush() {
+		Map<PendingKey, Event> flushed;
+		synchronized (this) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			flushed = pending;
+			pending = new LinkedHashMap<PendingKey, Event>();
+		}
+		super.dispatchAll(flushed.values());
+	}
+
+	/**
+	 * Retrieves the number of pending events.
+	 * 
+	 * @return The number of events which will be dispatched by the next
+	 *         {@link #flush()}.
+	 */
+	public synchronized int getPending() {
+		return pending.size();
+	}
+
+	/**
+	 * Makes an event pending, replacing the pending event of the same class
+	 * and coalescing key if there is one.
+	 * 
+	 * @param event
+	 *            The event to make pending.
+	 */
+	private synchronized void coalesce(CoalescibleEvent event) {
+		// Replacing a value keeps the key's position in the flush order
+		pending.put(new PendingKey(event.getClass(), event.getCoalescingKey()),
+				event);
+	}
+
+	/**
+	 * The class and coalescing key of a pending event.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class PendingKey {
+
+		/**
+		 * The class of the event.
+		 */
+		private final Class<?> type;
+
+		/**
+		 * The coalescing key of the event, or <tt>null</tt> if it has none.
+		 */
+		private final Object key;
+
+		/**
+		 * Constructs a new pending key.
+		 * 
+		 * @param type
+		 *            The class of the event.
+		 * @param key
+		 *            The coalescing key of the event, or <tt>null</tt> if it
+		 *            has none.
+		 */
+		private PendingKey(Class<?> type, @Nullable Object key) {
+			this.type = type;
+			this.key = key;
+		}
+
+		@Override
+		public int hashCode() {
+			return type.hashCode() * 31 + (key == null ? 0 : key.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof PendingKey)) {
+				return false;
+			}
+			PendingKey other = (PendingKey) object;
+			return type == other.type && Objects.equal(key, other.key);
+		}
+
+	}
+
+}
@@ -0,0 +1,37 @@
+package mint.event;
+
+import mint.network.packet.PacketReader;
+import mint.network.packet.PacketWriter;
+
+/**
+ * Serializes events of a single type to and from packet buffers, so that they
+ * can be journaled or sent to another process.
+ * 
+ * @param <E>
+ *            The type of events serialized by the codec.
+ * 
+ * @author Thomas G. P. Nappo
+ * @see EventCodecRegistry
+ */
+public interface EventCodec<E extends Event> {
+
+	/**
+	 * Writes an event.
+	 * 
+	 * @param event
+	 *            The event to write.
+	 * @param writer
+	 *            The writer to write the event to.
+	 */
+	void encode(E event, PacketWriter writer);
+
+	/**
+	 * Reads an event which was written by {@link #encode(Event, PacketWriter)}.
+	 * 
+	 * @param reader
+	 *            The reader to read the event from.
+	 * @return The read event.
+	 */
+	E decode(PacketReader reader);
+
+}
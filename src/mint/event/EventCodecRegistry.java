@@ -0,0 +1,144 @@
+package mint.event;
+
+import static mint.Preconditions.checkArgument;
+import static mint.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mint.network.packet.PacketReader;
+import mint.network.packet.PacketWriter;
+
+/**
+ * A registry of the {@link EventCodec}s of event types, each identified by a
+ * numeric id which is written along with its events.
+ * 
+ * <p>
+ * Only events whose exact class has been registered can be serialized; ids
+ * must agree between the registries which write and read an event.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventCodecRegistry {
+
+	/**
+	 * The registration of each event type.
+	 */
+	private final Map<Class<?>, Registration> types = new ConcurrentHashMap<Class<?>, Registration>();
+
+	/**
+	 * The registration of each id.
+	 */
+	private final Map<Integer, Registration> ids = new ConcurrentHashMap<Integer, Registration>();
+
+	/**
+	 * Registers the codec of an event type.
+	 * 
+	 * @param id
+	 *            The id which identifies the event type.
+	 * @param type
+	 *            The event type.
+	 * @param codec
+	 *            The codec which serializes events of the type.
+	 * @throws IllegalArgumentException
+	 *             If the id or the event type has already been registered.
+	 */
+	public synchronized <E extends Event> void register(int id, Class<E> type,
+			EventCodec<E> codec) {
+		checkNotNull(type);
+		checkNotNull(codec);
+		checkArgument(!ids.containsKey(id), "Id %d is already registered", id);
+		checkArgument(!types.containsKey(type), "%s is already registered",
+				type.getName());
+
+		Registration registration = new Registration(id, codec);
+		ids.put(id, registration);
+		types.put(type, registration);
+	}
+
+	/**
+	 * Determines whether an event can be serialized.
+	 * 
+	 * @param event
+	 *            The event.
+	 * @return Whether or not the class of the event has been registered.
+	 */
+	public boolean isRegistered(Event event) {
+		return types.containsKey(event.getClass());
+	}
+
+	/**
+	 * Writes the id of an event's type followed by the event.
+	 * 
+	 * @param event
+	 *            The event to write.
+	 * @param writer
+	 *            The writer to write the event to.
+	 * @throws IllegalArgumentException
+	 *             If the class of the event has not been registered.
+	 */
+	@SuppressWarnings("unchecked")
+	public void encode(Event event, PacketWriter writer) {
+		Registration registration = types.get(event.getClass());
+		if (registration == null) {
+			throw new IllegalArgumentException(event.getClass().getName()
+					+ " is not registered");
+		}
+
+		writer.writeInt(registration.id);
+		((EventCodec<Event>) registration.codec).encode(event, writer);
+	}
+
+	/**
+	 * Reads an event which was written by {@link #encode(Event, PacketWriter)}.
+	 * 
+	 * @param reader
+	 *            The reader to read the event from.
+	 * @return The read event.
+	 * @throws IllegalArgumentException
+	 *             If the id of the event's type has not been registered.
+	 */
+	public Event decode(PacketReader reader) {
+		int id = reader.readInt();
+		Registration registration = ids.get(id);
+		if (registration == null) {
+			throw new IllegalArgumentException("Id " + id + " is not registered");
+		}
+
+		return registration.codec.decode(reader);
+	}
+
+	/**
+	 * The id and codec of a registered event type.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class Registration {
+
+		/**
+		 * The id which identifies the event type.
+		 */
+		private final int id;
+
+		/**
+		 * The codec which serializes events of the type.
+		 */
+		private final EventCodec<?> codec;
+
+		/**
+		 * Constructs a new registration.
+		 * 
+		 * @param id
+		 *            The id which identifies the event type.
+		 * @param codec
+		 *            The codec which serializes events of the type.
+		 */
+		private Registration(int id, EventCodec<?> codec) {
+			this.id = id;
+			this.codec = codec;
+		}
+
+	}
+
+}
@@ -0,0 +1,34 @@
+package mint.event;
+
+/**
+ * Represents where an event handler is executed in relation to the thread
+ * which dispatches the event.
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public enum EventExecution {
+
+	/**
+	 * Event call is made on the dispatching thread, which waits for it to
+	 * complete before continuing to the next event handler.
+	 */
+	INLINE,
+
+	/**
+	 * Event call is scheduled on the event manager's asynchronous executor and
+	 * the dispatching thread continues without waiting for it.
+	 */
+	POOLED,
+
+	/**
+	 * Event call is scheduled on a new virtual thread and the dispatching
+	 * thread continues without waiting for it.
+	 * 
+	 * <p>
+	 * On platforms which do not support virtual threads, this behaves as
+	 * {@link #POOLED}.
+	 * </p>
+	 */
+	VIRTUAL;
+
+}
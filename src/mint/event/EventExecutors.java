@@ -0,0 +1,112 @@
+package mint.event;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mint.NotConstructable;
+import mint.VirtualThreads;
+
+/**
+ * Static utility methods which provide the executors used to run events off
+ * of the dispatching thread.
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventExecutors extends NotConstructable {
+
+	/**
+	 * Returns the shared executor, a cached pool of daemon threads which is
+	 * created on first use.
+	 * 
+	 * @return The shared event executor.
+	 */
+	public static ExecutorService shared() {
+		return SharedHolder.INSTANCE;
+	}
+
+	/**
+	 * Returns an executor which runs every task on a new virtual thread.
+	 * 
+	 * @return The virtual thread event executor.
+	 * @throws UnsupportedOperationException
+	 *             If the running Java platform does not support virtual
+	 *             threads.
+	 */
+	public static ExecutorService virtual() {
+		if (VirtualHolder.INSTANCE == null) {
+			throw new UnsupportedOperationException(
+					"Virtual threads are not supported by this Java platform");
+		}
+		return VirtualHolder.INSTANCE;
+	}
+
+	/**
+	 * Determines whether the running Java platform supports virtual threads,
+	 * and therefore whether {@link #virtual()} returns an executor.
+	 * 
+	 * @return Whether or not virtual threads are supported.
+	 */
+	public static boolean isVirtualSupported() {
+		return VirtualHolder.INSTANCE != null;
+	}
+
+	/**
+	 * Lazily holds the {@link EventExecutors#shared()} executor.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class SharedHolder {
+
+		/**
+		 * The counter used to name the threads of the executor.
+		 */
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		/**
+		 * The shared event executor.
+		 */
+		private static final ExecutorService INSTANCE = Executors
+				.newCachedThreadPool(new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "mint-event-"
+								+ threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+
+				});
+
+	}
+
+	/**
+	 * Lazily holds the {@link EventExecutors#virtual()} executor.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class VirtualHolder {
+
+		/**
+		 * The virtual thread event executor, or <tt>null</tt> if virtual
+		 * threads are not supported.
+		 */
+		private static final ExecutorService INSTANCE = VirtualThreads
+				.newExecutor();
+
+	}
+
+	/**
+	 * <tt>EventExecutors</tt> is a static-utility class and should therefore
+	 * never be constructed.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             If construction occurs.
+	 */
+	private EventExecutors() {
+		super();
+	}
+
+}
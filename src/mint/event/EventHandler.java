@@ -43,4 +43,19 @@ public @interface EventHandler {
 	 */
 	boolean ignoreCancelled() default false;
 
+	/**
+	 * Where the event-handler is executed in relation to the dispatching
+	 * thread.
+	 * 
+	 * <p>
+	 * Off-thread event-handlers are scheduled at their place in the priority
+	 * order, but may still be running while later event-handlers run. They are
+	 * best suited to {@link EventPriority#MONITOR} work such as logging, and
+	 * should not modify the event.
+	 * </p>
+	 * 
+	 * @return The execution of the event-handler.
+	 */
+	EventExecution execution() default EventExecution.INLINE;
+
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package mint.event;
+
+import static mint.Preconditions.checkNotNull;
+
+/**
+ * The definition of a single {@link EventHandler} method of a listener type:
+ * the event type it handles, the configuration of its annotation and the
+ * {@link EventInvoker} which calls it.
+ * 
+ * <p>
+ * Definitions are independent of any listener instance, so they are created
+ * once per listener type (see {@link EventHandlerTable}).
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventHandlerDefinition {
+
+	/**
+	 * The event type which the event handler handles.
+	 */
+	private final Class<? extends Event> eventType;
+
+	/**
+	 * The name of the event handler, used to identify it.
+	 */
+	private final String name;
+
+	/**
+	 * The compiled invoker of the event handler method.
+	 */
+	private final EventInvoker invoker;
+
+	/**
+	 * The priority of the event handler.
+	 */
+	private final EventPriority priority;
+
+	/**
+	 * Whether or not the event handler ignores cancellation.
+	 */
+	private final boolean ignoreCancelled;
+
+	/**
+	 * Where the event handler is executed in relation to the dispatching
+	 * thread.
+	 */
+	private final EventExecution execution;
+
+	/**
+	 * Constructs a new event handler definition.
+	 * 
+	 * @param eventType
+	 *            The event type which the event handler handles.
+	 * @param name
+	 *            The name of the event handler, used to identify it.
+	 * @param invoker
+	 *            The compiled invoker of the event handler method.
+	 * @param priority
+	 *            The priority of the event handler.
+	 * @param ignoreCancelled
+	 *            Whether or not the event handler ignores cancellation.
+	 * @param execution
+	 *            Where the event handler is executed in relation to the
+	 *            dispatching thread.
+	 */
+	public EventHandlerDefinition(Class<? extends Event> eventType,
+			String name, EventInvoker invoker, EventPriority priority,
+			boolean ignoreCancelled, EventExecution execution) {
+		this.eventType = checkNotNull(eventType);
+		this.name = checkNotNull(name);
+		this.invoker = checkNotNull(invoker);
+		this.priority = checkNotNull(priority);
+		this.ignoreCancelled = ignoreCancelled;
+		this.execution = checkNotNull(execution);
+	}
+
+	/**
+	 * Retrieves the event type which the event handler handles.
+	 * 
+	 * @return The definition's {@link #eventType}.
+	 */
+	public Class<? extends Event> getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Retrieves the name of the event handler, which is the binary name of the
+	 * class which declares the method followed by a <tt>.</tt> and the
+	 * method's name.
+	 * 
+	 * @return The definition's {@link #name}.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Retrieves the compiled invoker of the event handler method.
+	 * 
+	 * @return The definition's {@link #invoker}.
+	 */
+	public EventInvoker getInvoker() {
+		return invoker;
+	}
+
+	/**
+	 * Retrieves the priority of the event handler.
+	 * 
+	 * @return The definition's {@link #priority}.
+	 */
+	public EventPriority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Retrieves whether or not the event handler ignores cancellation.
+	 * 
+	 * @return Whether the event handler should execute even if the event has
+	 *         been cancelled.
+	 */
+	public boolean ignoresCancelled() {
+		return ignoreCancelled;
+	}
+
+	/**
+	 * Retrieves where the event handler is executed in relation to the
+	 * dispatching thread.
+	 * 
+	 * @return The definition's {@link #execution}.
+	 */
+	public EventExecution getExecution() {
+		return execution;
+	}
+
+	@Override
+	public String toString() {
+		return name + "(" + eventType.getName() + ")";
+	}
+
+}
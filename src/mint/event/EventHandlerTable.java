@@ -0,0 +1,30 @@
+package mint.event;
+
+import java.util.List;
+
+/**
+ * The definitions of every {@link EventHandler} method of a single listener
+ * type.
+ * 
+ * <p>
+ * Tables are normally generated at compile time by
+ * {@link mint.event.processor.EventHandlerProcessor}, as a class named after
+ * the listener type's binary name followed by <tt>$$EventHandlers</tt>. When
+ * no generated table is present, {@link EventHandlerTables} reflects on the
+ * listener type instead.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public interface EventHandlerTable {
+
+	/**
+	 * Returns the definitions of every event handler method of the listener
+	 * type.
+	 * 
+	 * @return An unmodifiable list of the listener type's event handler
+	 *         definitions.
+	 */
+	List<EventHandlerDefinition> getDefinitions();
+
+}
@@ -0,0 +1,138 @@
+package mint.event;
+
+import static mint.Preconditions.checkNotNull;
+import static mint.collect.Iterables.filter;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mint.NotConstructable;
+
+/**
+ * Static utility methods which retrieve the {@link EventHandlerTable} of a
+ * listener type.
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventHandlerTables extends NotConstructable {
+
+	/**
+	 * The suffix which is appended to the binary name of a listener type to
+	 * name its generated table.
+	 */
+	public static final String GENERATED_SUFFIX = "$$EventHandlers";
+
+	/**
+	 * The table of each listener type, computed once per type.
+	 */
+	private static final ClassValue<EventHandlerTable> tables = new ClassValue<EventHandlerTable>() {
+
+		@Override
+		protected EventHandlerTable computeValue(Class<?> type) {
+			EventHandlerTable generated = loadGenerated(type);
+			return generated != null ? generated : reflect(type);
+		}
+
+	};
+
+	/**
+	 * Returns the table of the given listener type.
+	 * 
+	 * <p>
+	 * The table generated at compile time is used if it is present, so that no
+	 * reflection is needed. Otherwise the table is built by reflecting on the
+	 * public methods of the type. Either way, the table is retrieved once per
+	 * type.
+	 * </p>
+	 * 
+	 * @param type
+	 *            The listener type.
+	 * @return The table of the listener type.
+	 * @throws NullPointerException
+	 *             If <tt>type</tt> is <tt>null</tt>.
+	 */
+	public static EventHandlerTable forType(
+			Class<? extends EventListener> type) {
+		return tables.get(checkNotNull(type));
+	}
+
+	/**
+	 * Loads the table generated for the given listener type.
+	 * 
+	 * @param type
+	 *            The listener type.
+	 * @return The generated table of the listener type, or <tt>null</tt> if
+	 *         none was generated.
+	 */
+	private static EventHandlerTable loadGenerated(Class<?> type) {
+		try {
+			Class<?> generated = Class.forName(type.getName()
+					+ GENERATED_SUFFIX, true, type.getClassLoader());
+			if (EventHandlerTable.class.isAssignableFrom(generated)) {
+				return (EventHandlerTable) generated.getConstructor()
+						.newInstance();
+			}
+		} catch (ClassNotFoundException e) {
+			// No table was generated; fall back to reflection
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(
+					"Failed to load the generated event handler table of "
+							+ type.getName(), e);
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the table of the given listener type by reflecting on its public
+	 * methods.
+	 * 
+	 * @param type
+	 *            The listener type.
+	 * @return The reflected table of the listener type.
+	 */
+	@SuppressWarnings("unchecked")
+	private static EventHandlerTable reflect(Class<?> type) {
+		final List<EventHandlerDefinition> definitions = new ArrayList<EventHandlerDefinition>();
+		for (Method method : filter(type.getMethods(),
+				EventHandlerPredicate.instance())) {
+			EventHandler eventHandler = method
+					.getAnnotation(EventHandler.class);
+			/*
+			 * Unchecked cast suppressed because it is better to throw an
+			 * exception, as it clearly signals something is wrong with the
+			 * specified event handler.
+			 */
+			definitions.add(new EventHandlerDefinition(
+					(Class<? extends Event>) method.getParameterTypes()[0],
+					method.getDeclaringClass().getName() + "."
+							+ method.getName(), EventInvokers.compile(method),
+					eventHandler.priority(), eventHandler.ignoreCancelled(),
+					eventHandler.execution()));
+		}
+
+		final List<EventHandlerDefinition> result = Collections
+				.unmodifiableList(definitions);
+		return new EventHandlerTable() {
+
+			@Override
+			public List<EventHandlerDefinition> getDefinitions() {
+				return result;
+			}
+
+		};
+	}
+
+	/**
+	 * <tt>EventHandlerTables</tt> is a static-utility class and should
+	 * therefore never be constructed.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             If construction occurs.
+	 */
+	private EventHandlerTables() {
+		super();
+	}
+
+}
@@ -0,0 +1,29 @@
+package mint.event;
+
+/**
+ * A compiled delegate which invokes a single {@link EventHandler} method upon
+ * a given {@link EventListener}.
+ * 
+ * <p>
+ * Invokers are created once per event handler method by
+ * {@link EventInvokers#compile(java.lang.reflect.Method)} so that event
+ * dispatching is a plain interface call rather than a reflective one.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public interface EventInvoker {
+
+	/**
+	 * Invokes the event handler method upon the given listener.
+	 * 
+	 * @param listener
+	 *            The listener which contains the event handler method.
+	 * @param event
+	 *            The event to pass as the event handler method's argument.
+	 * @throws Exception
+	 *             If the event handler method throws an exception.
+	 */
+	void invoke(EventListener listener, Event event) throws Exception;
+
+}
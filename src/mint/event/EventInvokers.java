@@ -0,0 +1,278 @@
+package mint.event;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.lang.reflect.Modifier.isPublic;
+import static java.lang.reflect.Modifier.isStatic;
+import static mint.Preconditions.checkNotNull;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import mint.NotConstructable;
+
+/**
+ * Static utility methods which compile {@link EventHandler} methods into
+ * {@link EventInvoker}s.
+ * 
+ * <p>
+ * Where possible, an invoker is spun by the {@link LambdaMetafactory} so that
+ * it calls the event handler method directly. Methods which cannot be linked
+ * that way (for example those declared in non-public classes) fall back to a
+ * {@link MethodHandle} based invoker, which still avoids the access checks and
+ * argument boxing of {@link Method#invoke(Object, Object...)}.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventInvokers extends NotConstructable {
+
+	/**
+	 * The erased type of {@link EventInvoker#invoke(EventListener, Event)}.
+	 */
+	private static final MethodType INVOKER_TYPE = methodType(void.class,
+			EventListener.class, Event.class);
+
+	/**
+	 * The lookup used to link event handler methods.
+	 */
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/**
+	 * A handle to <tt>MethodHandles.privateLookupIn(Class, Lookup)</tt>, or
+	 * <tt>null</tt> if the runtime predates it.
+	 */
+	private static final MethodHandle PRIVATE_LOOKUP_IN = privateLookupIn();
+
+	/**
+	 * Compiled invokers, cached against the class which declares their method
+	 * so that the cache never keeps a class (or its class loader) reachable.
+	 */
+	private static final ClassValue<ConcurrentMap<Method, EventInvoker>> invokers = new ClassValue<ConcurrentMap<Method, EventInvoker>>() {
+
+		@Override
+		protected ConcurrentMap<Method, EventInvoker> computeValue(
+				Class<?> type) {
+			return new ConcurrentHashMap<Method, EventInvoker>();
+		}
+
+	};
+
+	/**
+	 * Returns an invoker which calls the given event handler method.
+	 * 
+	 * <p>
+	 * Invokers are cached, so compiling the same method multiple times (for
+	 * example when registering many instances of a listener) is cheap.
+	 * </p>
+	 * 
+	 * @param method
+	 *            The event handler method to compile.
+	 * @return An invoker which calls the given method.
+	 * @throws NullPointerException
+	 *             If <tt>method</tt> is <tt>null</tt>.
+	 * @throws IllegalArgumentException
+	 *             If the method is not accessible.
+	 */
+	public static EventInvoker compile(Method method) {
+		checkNotNull(method);
+
+		ConcurrentMap<Method, EventInvoker> cache = invokers.get(method
+				.getDeclaringClass());
+		EventInvoker invoker = cache.get(method);
+		if (invoker == null) {
+			invoker = create(method);
+			EventInvoker existing = cache.putIfAbsent(method, invoker);
+			if (existing != null) {
+				invoker = existing;
+			}
+		}
+		return invoker;
+	}
+
+	/**
+	 * Creates a new invoker for the given event handler method.
+	 * 
+	 * @param method
+	 *            The event handler method to create an invoker for.
+	 * @return A new invoker which calls the given method.
+	 */
+	private static EventInvoker create(Method method) {
+		MethodHandles.Lookup lookup;
+		if (!isStatic(method.getModifiers()) && isPublic(method.getModifiers())
+				&& isAccessible(method.getDeclaringClass())
+				&& isAccessible(method.getParameterTypes()[0])
+				&& (lookup = lookupIn(method)) != null) {
+			try {
+				CallSite site = LambdaMetafactory.metafactory(lookup,
+						"invoke", methodType(EventInvoker.class),
+						INVOKER_TYPE, lookup.unreflect(method), methodType(
+								void.class, method.getDeclaringClass(),
+								method.getParameterTypes()[0]));
+				return (EventInvoker) site.getTarget().invoke();
+			} catch (Throwable t) {
+				// Fall back to a method handle based invoker
+			}
+		}
+
+		try {
+			method.setAccessible(true);
+		} catch (RuntimeException e) {
+			// Unreflecting will report whether the method is accessible
+		}
+		try {
+			MethodHandle handle = LOOKUP.unreflect(method);
+			if (isStatic(method.getModifiers())) {
+				handle = MethodHandles.dropArguments(handle, 0,
+						EventListener.class);
+			}
+			return new MethodHandleInvoker(handle.asType(INVOKER_TYPE));
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Event handler " + method
+					+ " is not accessible", e);
+		}
+	}
+
+	/**
+	 * Returns a lookup whose class loader can resolve the classes of the given
+	 * event handler method.
+	 * 
+	 * <p>
+	 * The class spun by the {@link LambdaMetafactory} resolves the listener and
+	 * event classes through the loader of its lookup. When they are not visible
+	 * from the loader of this class (for example when the listener was loaded
+	 * by a plugin's class loader), a private lookup in the listener's own class
+	 * is used instead.
+	 * </p>
+	 * 
+	 * @param method
+	 *            The event handler method to link.
+	 * @return The lookup to link the method with, or <tt>null</tt> if it cannot
+	 *         be linked by the {@link LambdaMetafactory}.
+	 */
+	private static MethodHandles.Lookup lookupIn(Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		if (isVisible(declaringClass)
+				&& isVisible(method.getParameterTypes()[0])) {
+			return LOOKUP;
+		}
+		if (PRIVATE_LOOKUP_IN == null) {
+			return null;
+		}
+		try {
+			return (MethodHandles.Lookup) PRIVATE_LOOKUP_IN.invokeExact(
+					declaringClass, LOOKUP);
+		} catch (Throwable t) {
+			// The listener's module does not open its package to us
+			return null;
+		}
+	}
+
+	/**
+	 * Determines whether the given class is resolved by name to itself from the
+	 * class loader of this class.
+	 * 
+	 * @param type
+	 *            The class to check.
+	 * @return Whether or not the class is visible to this class.
+	 */
+	private static boolean isVisible(Class<?> type) {
+		try {
+			return Class.forName(type.getName(), false,
+					EventInvokers.class.getClassLoader()) == type;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Looks up <tt>MethodHandles.privateLookupIn(Class, Lookup)</tt>, which is
+	 * only available from Java 9.
+	 * 
+	 * @return A handle to the method, or <tt>null</tt> if it does not exist.
+	 */
+	private static MethodHandle privateLookupIn() {
+		try {
+			return LOOKUP.findStatic(MethodHandles.class, "privateLookupIn",
+					methodType(MethodHandles.Lookup.class, Class.class,
+							MethodHandles.Lookup.class));
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Determines whether the given class, and every class enclosing it, is
+	 * <tt>public</tt>.
+	 * 
+	 * @param type
+	 *            The class to check.
+	 * @return Whether or not the class is accessible from any package.
+	 */
+	private static boolean isAccessible(Class<?> type) {
+		for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+			if (!isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * An invoker which delegates to an exactly-typed {@link MethodHandle}.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class MethodHandleInvoker implements EventInvoker {
+
+		/**
+		 * The handle to invoke, of type {@link EventInvokers#INVOKER_TYPE}.
+		 */
+		private final MethodHandle handle;
+
+		/**
+		 * Constructs a new method handle invoker.
+		 * 
+		 * @param handle
+		 *            The handle to invoke.
+		 */
+		private MethodHandleInvoker(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public void invoke(EventListener listener, Event event)
+				throws Exception {
+			try {
+				handle.invokeExact(listener, event);
+			} catch (Exception e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new UndeclaredThrowableException(t);
+			}
+		}
+
+	}
+
+	/**
+	 * <tt>EventInvokers</tt> is a static-utility class and should therefore
+	 * never be constructed.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             If construction occurs.
+	 */
+	private EventInvokers() {
+		super();
+	}
+
+}
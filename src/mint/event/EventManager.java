@@ -1,5 +1,8 @@
 package mint.event;
 
+import java.util.Collection;
+import java.util.concurrent.Future;
+
 import mint.inject.ImplementedBy;
 
 /**
@@ -19,6 +22,40 @@ public interface EventManager {
 	 */
 	public void dispatchEvent(Event event);
 
+	/**
+	 * Dispatches a batch of events to be handled by all registered
+	 * {@link EventListener}s.
+	 * 
+	 * <p>
+	 * Each event reaches its handlers in priority order and respects
+	 * cancellation as it would with {@link #dispatchEvent(Event)}. However, the
+	 * handlers of different events may be interleaved: implementations are free
+	 * to fire each handler for every event of a type before moving on to the
+	 * next handler.
+	 * </p>
+	 * 
+	 * @param events
+	 *            The events to dispatch.
+	 */
+	public void dispatchAll(Collection<? extends Event> events);
+
+	/**
+	 * Dispatches an event to be handled by all registered {@link EventListener}s
+	 * off of the calling thread.
+	 * 
+	 * <p>
+	 * The event is dispatched exactly as {@link #dispatchEvent(Event)} would,
+	 * so its handlers still run one after another in priority order and still
+	 * respect cancellation.
+	 * </p>
+	 * 
+	 * @param event
+	 *            The event type to dispatch.
+	 * @return A future which completes with the given event once every handler
+	 *         has run, or completes exceptionally if a handler failed.
+	 */
+	public <E extends Event> Future<E> dispatchAsync(E event);
+
 	/**
 	 * Registers an event listener as a target for all further event dispatches.
 	 * 
@@ -27,4 +64,60 @@ public interface EventManager {
 	 */
 	public void registerListener(EventListener listener);
 
+	/**
+	 * Registers an event listener as a target for all further event dispatches
+	 * of {@link KeyedEvent}s with the given key.
+	 * 
+	 * <p>
+	 * The listener's event handlers are not dispatched any event which is not
+	 * keyed, or which has a different key.
+	 * </p>
+	 * 
+	 * @param listener
+	 *            The event listener to register.
+	 * @param key
+	 *            The key of the events which the listener handles.
+	 */
+	public void registerListener(EventListener listener, Object key);
+
+	/**
+	 * Registers an event listener as a target for all further event
+	 * dispatches, without preventing it from being garbage collected.
+	 * 
+	 * <p>
+	 * Once the listener has been collected, its event handlers are no longer
+	 * invoked and are removed from the event manager.
+	 * </p>
+	 * 
+	 * @param listener
+	 *            The event listener to register.
+	 */
+	public void registerWeakListener(EventListener listener);
+
+	/**
+	 * Registers an event listener as a target for all further event dispatches
+	 * of {@link KeyedEvent}s with the given key, without preventing it from
+	 * being garbage collected.
+	 * 
+	 * @param listener
+	 *            The event listener to register.
+	 * @param key
+	 *            The key of the events which the listener handles.
+	 * @see #registerWeakListener(EventListener)
+	 */
+	public void registerWeakListener(EventListener listener, Object key);
+
+	/**
+	 * Unregisters an event listener, so that it is no longer a target for
+	 * further event dispatches.
+	 * 
+	 * <p>
+	 * Dispatches which are already in progress may still reach the listener.
+	 * </p>
+	 * 
+	 * @param listener
+	 *            The event listener to unregister.
+	 */
+	public void unregisterListener(EventListener listener);
+
 }
\ No newline at end of file
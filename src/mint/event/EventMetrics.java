@@ -0,0 +1,208 @@
+package mint.event;
+
+import static mint.Preconditions.checkArgument;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import mint.Nullable;
+
+/**
+ * Records the dispatch statistics of each event handler and each event type
+ * of an event manager.
+ * 
+ * <p>
+ * Every invocation is counted, but only one in every <i>sample rate</i>
+ * invocations is timed, so that metrics are cheap enough to leave enabled.
+ * Timed invocations which take longer than the <i>budget</i> are counted as
+ * slow and reported to a {@link SlowHandlerReporter}. Use a sample rate of
+ * <tt>1</tt> to check every invocation against the budget.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ * @see UniversalEventManager#setMetrics(EventMetrics)
+ */
+public final class EventMetrics {
+
+	/**
+	 * The mask applied to a random number to decide whether to time an
+	 * invocation.
+	 */
+	private final int sampleMask;
+
+	/**
+	 * The duration, in nanoseconds, above which an invocation is slow.
+	 */
+	private final long budgetNanos;
+
+	/**
+	 * The reporter of slow invocations, or <tt>null</tt> if they are only
+	 * counted.
+	 */
+	private final SlowHandlerReporter reporter;
+
+	/**
+	 * The statistics of each event handler.
+	 */
+	private final ConcurrentMap<EventHandlerDefinition, EventStatistics> handlers = new ConcurrentHashMap<EventHandlerDefinition, EventStatistics>();
+
+	/**
+	 * The statistics of each event type.
+	 */
+	private final ConcurrentMap<Class<? extends Event>, EventStatistics> events = new ConcurrentHashMap<Class<? extends Event>, EventStatistics>();
+
+	/**
+	 * Constructs new event metrics.
+	 * 
+	 * @param sampleRate
+	 *            The number of invocations per timed invocation, which must be
+	 *            a power of two.
+	 * @param budgetNanos
+	 *            The duration, in nanoseconds, above which an event handler
+	 *            invocation is slow.
+	 * @param reporter
+	 *            The reporter of slow invocations, or <tt>null</tt> if they
+	 *            should only be counted.
+	 * @throws IllegalArgumentException
+	 *             If the sample rate is not a power of two.
+	 */
+	public EventMetrics(int sampleRate, long budgetNanos,
+			@Nullable SlowHandlerReporter reporter) {
+		checkArgument(sampleRate > 0 && (sampleRate & (sampleRate - 1)) == 0,
+				"Sample rate must be a power of two: %d", sampleRate);
+		this.sampleMask = sampleRate - 1;
+		this.budgetNanos = budgetNanos;
+		this.reporter = reporter;
+	}
+
+	/**
+	 * Constructs new event metrics which time every invocation and never
+	 * consider one slow.
+	 */
+	public EventMetrics() {
+		this(1, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * Decides whether the next invocation should be timed.
+	 * 
+	 * @return Whether or not to time the next invocation.
+	 */
+	boolean sample() {
+		return sampleMask == 0
+				|| (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+	}
+
+	/**
+	 * Records an event handler invocation.
+	 * 
+	 * @param handler
+	 *            The definition of the invoked event handler.
+	 * @param event
+	 *            The event which was handled.
+	 * @param nanos
+	 *            The duration of the invocation, in nanoseconds, or
+	 *            <tt>-1</tt> if it was not timed.
+	 */
+	void recordHandler(EventHandlerDefinition handler, Event event, long nanos) {
+		EventStatistics statistics = handlers.get(handler);
+		if (statistics == null) {
+			statistics = putIfAbsent(handlers, handler);
+		}
+		statistics.recordInvocations(1);
+		if (nanos >= 0) {
+			boolean slow = nanos > budgetNanos;
+			statistics.recordSample(nanos, slow);
+			if (slow && reporter != null) {
+				reporter.report(handler, event, nanos);
+			}
+		}
+	}
+
+	/**
+	 * Records the dispatch of events of a single type.
+	 * 
+	 * @param type
+	 *            The type of the dispatched events.
+	 * @param count
+	 *            The number of dispatched events.
+	 * @param nanos
+	 *            The duration of each dispatch, in nanoseconds, or <tt>-1</tt>
+	 *            if it was not timed.
+	 */
+	void recordEvent(Class<? extends Event> type, int count, long nanos) {
+		EventStatistics statistics = events.get(type);
+		if (statistics == null) {
+			statistics = putIfAbsent(events, type);
+		}
+		statistics.recordInvocations(count);
+		if (nanos >= 0) {
+			statistics.recordSample(nanos, false);
+		}
+	}
+
+	/**
+	 * Retrieves the statistics of an event handler.
+	 * 
+	 * @param handler
+	 *            The definition of the event handler.
+	 * @return The statistics of the event handler, or <tt>null</tt> if it has
+	 *         not been invoked.
+	 */
+	@Nullable
+	public EventStatistics getStatistics(EventHandlerDefinition handler) {
+		return handlers.get(handler);
+	}
+
+	/**
+	 * Retrieves the statistics of an event type.
+	 * 
+	 * @param type
+	 *            The event type.
+	 * @return The statistics of the event type, or <tt>null</tt> if no event
+	 *         of the type has been dispatched.
+	 */
+	@Nullable
+	public EventStatistics getStatistics(Class<? extends Event> type) {
+		return events.get(type);
+	}
+
+	/**
+	 * Retrieves the statistics of every event handler which has been invoked.
+	 * 
+	 * @return An unmodifiable view of the statistics of each event handler.
+	 */
+	public Map<EventHandlerDefinition, EventStatistics> getHandlerStatistics() {
+		return Collections.unmodifiableMap(handlers);
+	}
+
+	/**
+	 * Retrieves the statistics of every event type which has been dispatched.
+	 * 
+	 * @return An unmodifiable view of the statistics of each event type.
+	 */
+	public Map<Class<? extends Event>, EventStatistics> getEventStatistics() {
+		return Collections.unmodifiableMap(events);
+	}
+
+	/**
+	 * Returns the statistics mapped to a key, mapping new statistics if there
+	 * are none.
+	 * 
+	 * @param statistics
+	 *            The statistics of each key.
+	 * @param key
+	 *            The key of the statistics.
+	 * @return The statistics mapped to the key.
+	 */
+	private static <K> EventStatistics putIfAbsent(
+			ConcurrentMap<K, EventStatistics> statistics, K key) {
+		EventStatistics created = new EventStatistics();
+		EventStatistics existing = statistics.putIfAbsent(key, created);
+		return existing != null ? existing : created;
+	}
+
+}
@@ -0,0 +1,379 @@
+package mint.event;
+
+import static mint.Preconditions.checkArgument;
+import static mint.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import mint.Supplier;
+import mint.service.AbstractService;
+
+/**
+ * A pre-allocated ring buffer of pooled events, which are dispatched to an
+ * {@link EventManager} by one or more consumer threads.
+ * 
+ * <p>
+ * Producers {@link #claim()} a sequence, fill in the event {@link #get(long)
+ * at that sequence} and then {@link #publish(long)} it:
+ * </p>
+ * 
+ * <pre>
+ * long sequence = pipeline.claim();
+ * MoveEvent event = pipeline.get(sequence);
+ * event.set(player, x, y);
+ * pipeline.publish(sequence);
+ * </pre>
+ * 
+ * <p>
+ * Every event of the pipeline is created up front by its factory and reused,
+ * so dispatching through a pipeline does not allocate. As a consequence,
+ * handlers must not retain pooled events, and should not be off-thread (see
+ * {@link EventHandler#execution()}). The cancellation state of a
+ * {@link CancellableEvent} is reset once it has been dispatched.
+ * </p>
+ * 
+ * <p>
+ * Consumers share the work of the pipeline, so with more than one consumer
+ * events may be dispatched out of order.
+ * </p>
+ * 
+ * @param <E>
+ *            The type of the pooled events.
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventPipeline<E extends Event> extends AbstractService {
+
+	/**
+	 * The counter used to name the threads of all pipelines.
+	 */
+	private static final AtomicLong threadCount = new AtomicLong();
+
+	/**
+	 * The event manager which dispatches the events of the pipeline.
+	 */
+	private final EventManager manager;
+
+	/**
+	 * The pooled events, indexed by sequence modulo the capacity.
+	 */
+	private final Object[] events;
+
+	/**
+	 * The mask which maps a sequence to its index in {@link #events}.
+	 */
+	private final int mask;
+
+	/**
+	 * The sequence each slot was last published with, or <tt>-1</tt> if it
+	 * was never published. Once the event of a slot has been dispatched, the
+	 * slot holds the {@link #dispatched(long) dispatched} form of its
+	 * sequence instead.
+	 */
+	private final AtomicLongArray published;
+
+	/**
+	 * The next sequence to be claimed by a producer.
+	 */
+	private final AtomicLong claimSequence = new AtomicLong();
+
+	/**
+	 * The next sequence to be claimed by a consumer.
+	 */
+	private final AtomicLong workSequence = new AtomicLong();
+
+	/**
+	 * The consumers of the pipeline.
+	 */
+	private final Consumer[] consumers;
+
+	/**
+	 * Whether or not the pipeline is stopped, or has not been started yet.
+	 */
+	private volatile boolean halted = true;
+
+	/**
+	 * Constructs a new event pipeline.
+	 * 
+	 * @param manager
+	 *            The event manager which dispatches the events of the
+	 *            pipeline.
+	 * @param factory
+	 *            The factory which creates the pooled events.
+	 * @param capacity
+	 *            The number of pooled events, which must be a power of two.
+	 * @param consumers
+	 *            The number of consumer threads.
+	 * @throws IllegalArgumentException
+	 *             If the capacity is not a power of two, or there is not at
+	 *             least one consumer.
+	 */
+	public EventPipeline(EventManager manager, Supplier<E> factory,
+			int capacity, int consumers) {
+		checkArgument(capacity > 0 && (capacity & (capacity - 1)) == 0,
+				"Capacity must be a power of two: %d", capacity);
+		checkArgument(consumers > 0, "There must be at least one consumer");
+
+		this.manager = checkNotNull(manager);
+		this.events = new Object[capacity];
+		this.mask = capacity - 1;
+		this.published = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			events[i] = checkNotNull(factory.get());
+			published.set(i, -1);
+		}
+
+		this.consumers = new Consumer[consumers];
+		for (int i = 0; i < consumers; i++) {
+			this.consumers[i] = new Consumer(this);
+		}
+	}
+
+	/**
+	 * Constructs a new event pipeline with a single consumer thread, which
+	 * keeps events in the order they were published.
+	 * 
+	 * @param manager
+	 *            The event manager which dispatches the events of the
+	 *            pipeline.
+	 * @param factory
+	 *            The factory which creates the pooled events.
+	 * @param capacity
+	 *            The number of pooled events, which must be a power of two.
+	 * @throws IllegalArgumentException
+	 *             If the capacity is not a power of two.
+	 */
+	public EventPipeline(EventManager manager, Supplier<E> factory,
+			int capacity) {
+		this(manager, factory, capacity, 1);
+	}
+
+	/**
+	 * Claims the next sequence of the pipeline, waiting for its pooled event
+	 * to be dispatched if the pipeline is full.
+	 * 
+	 * <p>
+	 * Every claimed sequence must be {@link #publish(long) published}, or the
+	 * pipeline will stall.
+	 * </p>
+	 * 
+	 * @return The claimed sequence.
+	 * @throws IllegalStateException
+	 *             If the pipeline is full and not running, so its pooled
+	 *             events would never be dispatched.
+	 */
+	public long claim() {
+		for (int attempts = 0;; attempts++) {
+			long sequence = claimSequence.get();
+			if (sequence - events.length > minimumReleased()) {
+				if (halted) {
+					throw new IllegalStateException(
+							"The pipeline is full and not running");
+				}
+				backOff(attempts);
+			} else if (claimSequence.compareAndSet(sequence, sequence + 1)) {
+				// Claimed only once there is room, so failures hold no slot
+				return sequence;
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the pooled event of a claimed sequence.
+	 * 
+	 * @param sequence
+	 *            The claimed sequence.
+	 * @return The pooled event to fill in.
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(long sequence) {
+		return (E) events[(int) sequence & mask];
+	}
+
+	/**
+	 * Publishes the pooled event of a claimed sequence, making it available
+	 * for dispatch.
+	 * 
+	 * @param sequence
+	 *            The claimed sequence.
+	 */
+	public void publish(long sequence) {
+		published.set((int) sequence & mask, sequence);
+	}
+
+	@Override
+	protected void onStart() {
+		// Resume from the first sequence abandoned when the pipeline stopped
+		long resume = Long.MAX_VALUE;
+		for (Consumer consumer : consumers) {
+			resume = Math.min(resume, consumer.abandoned);
+		}
+		workSequence.set(resume);
+		halted = false;
+
+		for (Consumer consumer : consumers) {
+			Thread thread = new Thread(consumer, "mint-event-pipeline-"
+					+ threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			consumer.thread = thread;
+			thread.start();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Stopping waits for the consumers to dispatch the events which were
+	 * published, in sequence, before the pipeline was stopped.
+	 * </p>
+	 */
+	@Override
+	protected void onStop() {
+		halted = true;
+		for (Consumer consumer : consumers) {
+			LockSupport.unpark(consumer.thread);
+			try {
+				consumer.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the lowest sequence which every consumer has released.
+	 * 
+	 * @return The lowest released sequence.
+	 */
+	private long minimumReleased() {
+		long minimum = Long.MAX_VALUE;
+		for (Consumer consumer : consumers) {
+			minimum = Math.min(minimum, consumer.released);
+		}
+		return minimum;
+	}
+
+	/**
+	 * Returns the value which a slot holds once the event of a sequence has
+	 * been dispatched, which is never a sequence or <tt>-1</tt>.
+	 * 
+	 * @param sequence
+	 *            The dispatched sequence.
+	 * @return The dispatched form of the sequence.
+	 */
+	private static long dispatched(long sequence) {
+		return -sequence - 2;
+	}
+
+	/**
+	 * Waits a short while, escalating from spinning to yielding to parking as
+	 * the number of attempts grows.
+	 * 
+	 * @param attempts
+	 *            The number of times the caller has waited already.
+	 */
+	private static void backOff(int attempts) {
+		if (attempts < 100) {
+			return;
+		} else if (attempts < 200) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(1000L);
+		}
+	}
+
+	/**
+	 * Runs a consumer of the pipeline until the pipeline is stopped, claiming
+	 * published sequences and dispatching their pooled events.
+	 * 
+	 * @param consumer
+	 *            The consumer to run.
+	 */
+	private void consume(Consumer consumer) {
+		while (true) {
+			long sequence = workSequence.getAndIncrement();
+			consumer.released = sequence - 1;
+
+			int index = (int) sequence & mask;
+			long slot;
+			for (int attempts = 0; (slot = published.get(index)) != sequence; attempts++) {
+				if (slot == dispatched(sequence)) {
+					// Dispatched before a restart, ahead of an abandoned one
+					break;
+				}
+				if (halted) {
+					consumer.abandoned = sequence;
+					return;
+				}
+				backOff(attempts);
+			}
+			if (slot != sequence) {
+				continue;
+			}
+
+			Event event = (Event) events[index];
+			try {
+				manager.dispatchEvent(event);
+			} catch (Throwable t) {
+				// Nowhere to propagate, and the consumer must keep running
+				t.printStackTrace();
+			}
+			if (event instanceof CancellableEvent) {
+				((CancellableEvent) event).setCancelled(false);
+			}
+			published.set(index, dispatched(sequence));
+		}
+	}
+
+	/**
+	 * A consumer of the pipeline, which claims published sequences and
+	 * dispatches their pooled events.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class Consumer implements Runnable {
+
+		/**
+		 * The pipeline which the consumer belongs to.
+		 */
+		private final EventPipeline<?> pipeline;
+
+		/**
+		 * The thread of the consumer.
+		 */
+		private Thread thread;
+
+		/**
+		 * The sequence below which every pooled event has been dispatched by
+		 * this consumer, or claimed by another.
+		 */
+		private volatile long released = -1;
+
+		/**
+		 * The sequence which the consumer had claimed, but not dispatched,
+		 * when the pipeline was last stopped.
+		 */
+		private long abandoned;
+
+		/**
+		 * Constructs a new consumer.
+		 * 
+		 * @param pipeline
+		 *            The pipeline which the consumer belongs to.
+		 */
+		private Consumer(EventPipeline<?> pipeline) {
+			this.pipeline = pipeline;
+		}
+
+		@Override
+		public void run() {
+			pipeline.consume(this);
+		}
+
+	}
+
+}
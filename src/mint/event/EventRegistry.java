@@ -1,84 +1,672 @@
 package mint.event;
 
-import java.lang.reflect.Method;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import mint.Nullable;
+import mint.Predicate;
 
 /**
  * An event registry can both store and retrieve event mappings.
  * 
+ * <p>
+ * For each concrete event type, the registry keeps a flat, priority-ordered
+ * array of handlers, the <i>dispatch plan</i>. A plan includes the handlers
+ * of every event supertype (see {@link EventTypes#supertypes(Class)}), so a
+ * handler of {@link CancellableEvent} is fired for all cancellable events.
+ * Plans are built on first retrieval and discarded whenever the registered
+ * handlers change.
+ * </p>
+ * 
+ * <p>
+ * Handlers may be registered under a key (see {@link KeyedEvent}), in which
+ * case they are only part of the plan for events with an equal key. The
+ * handlers of a key are merged with the handlers registered without a key
+ * when an event with that key is first dispatched, and the merged array is
+ * kept by the plan until the handlers of that key change. Retrieving the
+ * handlers of a keyed event therefore costs a single lookup regardless of how
+ * many keys are registered, and registering under one key never discards the
+ * arrays of the others.
+ * </p>
+ * 
+ * <p>
+ * The registry is copy-on-write: every registration without a key publishes
+ * a new immutable {@link Snapshot}, and every registration under a key
+ * replaces the array of that key, so retrieving a dispatch plan never takes a
+ * lock and is never affected by a concurrent registration.
+ * </p>
+ * 
+ * <p>
+ * The handlers of each listener are also indexed by the identity of the
+ * listener, so unregistering a listener only copies the arrays which contain
+ * its handlers. Handlers whose listener is held through a reference created
+ * by {@link #createWeakReference(EventListener)} are removed in the same way
+ * once their listener has been collected, by the next registration,
+ * unregistration or retrieval of a dispatch plan. Retrieving a plan only
+ * polls for collected listeners, so it never takes a lock unless one has
+ * been collected.
+ * </p>
+ * 
  * @author Thomas G. P. Nappo
  */
 public final class EventRegistry {
 
 	/**
-	 * The {@link Map} backing of the registry. This is used to store and
-	 * retrieve registered event mappings.
+	 * The plan of event types which have no handlers.
+	 */
+	private static final RegisteredHandler[] EMPTY_PLAN = new RegisteredHandler[0];
+
+	/**
+	 * Orders handlers by their priority, from lowest ordinal to highest.
+	 */
+	private static final Comparator<RegisteredHandler> PRIORITY_ORDER = new Comparator<RegisteredHandler>() {
+
+		@Override
+		public int compare(RegisteredHandler first, RegisteredHandler second) {
+			return first.getPriority().compareTo(second.getPriority());
+		}
+
+	};
+
+	/**
+	 * The currently published snapshot of the registry.
+	 */
+	private volatile Snapshot snapshot = new Snapshot(
+			Collections.<Class<? extends Event>, RegisteredHandler[]> emptyMap());
+
+	/**
+	 * The handlers of each event type registered under each key, in order of
+	 * registration. Each array is replaced rather than modified, and only
+	 * while holding the lock of the registry.
+	 */
+	private final ConcurrentMap<Class<? extends Event>, ConcurrentMap<Object, RegisteredHandler[]>> keyedBacking = new ConcurrentHashMap<Class<? extends Event>, ConcurrentMap<Object, RegisteredHandler[]>>();
+
+	/**
+	 * The number of changes which have been made to the {@link #keyedBacking},
+	 * used to detect the keyed plans which were built during a change.
+	 */
+	private volatile int keyedModifications;
+
+	/**
+	 * Matches the handlers whose listener has been collected.
+	 */
+	private static final Predicate<RegisteredHandler> COLLECTED = new Predicate<RegisteredHandler>() {
+
+		@Override
+		public boolean evaluate(RegisteredHandler input) {
+			return input.isCollected();
+		}
+
+	};
+
+	/**
+	 * The registrations of each listener, by the identity hash code of the
+	 * listener, which are only accessed while holding the lock of the
+	 * registry.
+	 */
+	private final Map<Integer, List<Registration>> registrations = new HashMap<Integer, List<Registration>>();
+
+	/**
+	 * The queue of weakly-held listeners which have been collected.
 	 */
-	private final Map<Integer, Map<Method, EventListener>> backing = new HashMap<Integer, Map<Method, EventListener>>();
+	private final ReferenceQueue<EventListener> collected = new ReferenceQueue<EventListener>();
+
+	/**
+	 * Creates a weak reference to a listener, so that its handlers can be
+	 * registered without preventing it from being collected.
+	 * 
+	 * @param listener
+	 *            The listener to reference.
+	 * @return A weak reference to the listener.
+	 */
+	public Reference<EventListener> createWeakReference(EventListener listener) {
+		return new ListenerReference(listener, collected);
+	}
 
 	/**
 	 * Registers an event mapping.
 	 * 
+	 * <p>
+	 * If the handler has a {@link RegisteredHandler#getKey() key}, it is only
+	 * mapped to events with an equal key. Registrations are serialized with
+	 * each other, but never block the retrieval of dispatch plans.
+	 * </p>
+	 * 
 	 * @param event
 	 *            The event type.
-	 * @param priority
-	 *            The priority of the event mapping.
-	 * @param ignoreCancellation
-	 *            Whether or not to ignore cancellation.
-	 * @param method
-	 *            The method to invoke upon event execution.
-	 * @param listener
-	 *            The listener that contains the specified method.
+	 * @param handler
+	 *            The handler to invoke upon event execution.
 	 */
 	public synchronized void register(Class<? extends Event> event,
-			EventPriority priority, boolean ignoreCancellation, Method method,
-			EventListener listener) {
-		final int key = createKey(event, priority, ignoreCancellation);
+			RegisteredHandler handler) {
+		Object key = handler.getKey();
+		if (key == null) {
+			Snapshot current = snapshot;
+			Map<Class<? extends Event>, RegisteredHandler[]> backing = new HashMap<Class<? extends Event>, RegisteredHandler[]>(
+					current.backing);
+			backing.put(event, append(backing.get(event), handler));
+
+			Snapshot next = new Snapshot(Collections.unmodifiableMap(backing));
+			// Plans of unrelated event types are unaffected and can be carried
+			// over
+			for (Entry<Class<? extends Event>, DispatchPlan> plan : current.plans
+					.entrySet()) {
+				if (!event.isAssignableFrom(plan.getKey())) {
+					next.plans.put(plan.getKey(), plan.getValue());
+				}
+			}
+			snapshot = next;
+		} else {
+			ConcurrentMap<Object, RegisteredHandler[]> keyed = keyedBacking
+					.get(event);
+			if (keyed == null) {
+				keyedBacking.put(event,
+						keyed = new ConcurrentHashMap<Object, RegisteredHandler[]>());
+			}
+			keyed.put(key, append(keyed.get(key), handler));
+			invalidate(event, key);
+		}
+
+		Integer hash = System.identityHashCode(handler.getListener());
+		List<Registration> listenerRegistrations = registrations.get(hash);
+		if (listenerRegistrations == null) {
+			registrations.put(hash,
+					listenerRegistrations = new ArrayList<Registration>(1));
+		}
+		listenerRegistrations.add(new Registration(event, handler));
+
+		expungeCollected();
+	}
+
+	/**
+	 * Unregisters every event mapping of a listener.
+	 * 
+	 * @param listener
+	 *            The listener whose handlers to unregister.
+	 */
+	public synchronized void unregister(final EventListener listener) {
+		remove(System.identityHashCode(listener),
+				new Predicate<RegisteredHandler>() {
+
+					@Override
+					public boolean evaluate(RegisteredHandler input) {
+						return input.getListener() == listener;
+					}
+
+				});
+
+		expungeCollected();
+	}
+
+	/**
+	 * Unregisters every event mapping whose listener has been collected since
+	 * this was last called.
+	 */
+	private void expungeCollected() {
+		for (Reference<? extends EventListener> reference; (reference = collected
+				.poll()) != null;) {
+			remove(((ListenerReference) reference).hash, COLLECTED);
+		}
+	}
+
+	/**
+	 * Unregisters every event mapping whose listener has been collected, if
+	 * any listener has been collected since this was last called.
+	 */
+	private void pollCollected() {
+		Reference<? extends EventListener> reference = collected.poll();
+		if (reference != null) {
+			expungeCollected(reference);
+		}
+	}
+
+	/**
+	 * Unregisters every event mapping whose listener has been collected,
+	 * starting with the listener of a reference already taken from the queue.
+	 * 
+	 * @param reference
+	 *            The reference to the first collected listener.
+	 */
+	private synchronized void expungeCollected(
+			Reference<? extends EventListener> reference) {
+		remove(((ListenerReference) reference).hash, COLLECTED);
+		expungeCollected();
+	}
+
+	/**
+	 * Unregisters the event mappings of the listeners with an identity hash
+	 * code whose handler satisfies a predicate.
+	 * 
+	 * @param hash
+	 *            The identity hash code of the listeners.
+	 * @param predicate
+	 *            The predicate which handlers to unregister satisfy.
+	 */
+	private void remove(int hash, Predicate<RegisteredHandler> predicate) {
+		List<Registration> listenerRegistrations = registrations.get(hash);
+		if (listenerRegistrations == null) {
+			return;
+		}
+		List<Registration> removed = new ArrayList<Registration>();
+		for (Iterator<Registration> iterator = listenerRegistrations
+				.iterator(); iterator.hasNext();) {
+			Registration registration = iterator.next();
+			if (predicate.evaluate(registration.handler)) {
+				removed.add(registration);
+				iterator.remove();
+			}
+		}
+		if (listenerRegistrations.isEmpty()) {
+			registrations.remove(hash);
+		}
+
+		Map<Class<? extends Event>, RegisteredHandler[]> backing = null;
+		for (Registration registration : removed) {
+			Class<? extends Event> event = registration.event;
+			Object key = registration.handler.getKey();
+			if (key == null) {
+				if (backing == null) {
+					backing = new HashMap<Class<? extends Event>, RegisteredHandler[]>(
+							snapshot.backing);
+				}
+				RegisteredHandler[] handlers = without(backing.get(event),
+						registration.handler);
+				if (handlers.length > 0) {
+					backing.put(event, handlers);
+				} else {
+					backing.remove(event);
+				}
+				continue;
+			}
+
+			ConcurrentMap<Object, RegisteredHandler[]> keyed = keyedBacking
+					.get(event);
+			RegisteredHandler[] handlers = without(keyed.get(key),
+					registration.handler);
+			if (handlers.length > 0) {
+				keyed.put(key, handlers);
+			} else {
+				keyed.remove(key);
+				if (keyed.isEmpty()) {
+					keyedBacking.remove(event);
+				}
+			}
+			invalidate(event, key);
+		}
+		if (backing == null) {
+			return;
+		}
+
+		Snapshot current = snapshot;
+		Snapshot next = new Snapshot(Collections.unmodifiableMap(backing));
+		plans: for (Entry<Class<? extends Event>, DispatchPlan> plan : current.plans
+				.entrySet()) {
+			for (Registration registration : removed) {
+				if (registration.handler.getKey() == null
+						&& registration.event.isAssignableFrom(plan.getKey())) {
+					continue plans;
+				}
+			}
+			next.plans.put(plan.getKey(), plan.getValue());
+		}
+		snapshot = next;
+	}
 
-		Map<Method, EventListener> methodMap = backing.get(key);
-		if (methodMap == null) {
-			backing.put(key, methodMap = new HashMap<Method, EventListener>());
+	/**
+	 * Discards the keyed plans of a key which include the handlers of an
+	 * event type, after the handlers registered under that key have changed.
+	 * 
+	 * @param event
+	 *            The event type whose keyed handlers have changed.
+	 * @param key
+	 *            The key whose handlers have changed.
+	 */
+	private void invalidate(Class<? extends Event> event, Object key) {
+		keyedModifications++;
+		for (Entry<Class<? extends Event>, DispatchPlan> plan : snapshot.plans
+				.entrySet()) {
+			if (event.isAssignableFrom(plan.getKey())) {
+				plan.getValue().keyed.remove(key);
+			}
 		}
-		methodMap.put(method, listener);
+	}
 
-		backing.put(key, methodMap);
+	/**
+	 * Returns the dispatch plan of the given event type: every handler
+	 * registered for it or one of its supertypes without a key, ordered by
+	 * priority.
+	 * 
+	 * <p>
+	 * Within a priority, handlers of more specific types come first, and
+	 * handlers of the same type are in order of registration.
+	 * </p>
+	 * 
+	 * <p>
+	 * The returned array is shared and must not be modified.
+	 * </p>
+	 * 
+	 * @param event
+	 *            The event type to retrieve the plan of.
+	 * @return The handlers registered for the event type, which is empty if
+	 *         no mapping exists.
+	 */
+	public RegisteredHandler[] getHandlers(Class<? extends Event> event) {
+		pollCollected();
+		return snapshot.getPlan(event).handlers;
 	}
 
 	/**
-	 * Returns a method mapping using the given configurations or <tt>null</tt>
-	 * if no mapping exists.
+	 * Returns the dispatch plan of the given event type for events with the
+	 * given key: every handler registered for it or one of its supertypes,
+	 * either without a key or with an equal key, ordered by priority.
+	 * 
+	 * <p>
+	 * Within a priority, handlers registered without a key come first. Each
+	 * group is ordered by type, more specific types first, and then by
+	 * registration.
+	 * </p>
+	 * 
+	 * <p>
+	 * The returned array is shared and must not be modified.
+	 * </p>
 	 * 
 	 * @param event
-	 *            The event type of the event mapping.
-	 * @param priority
-	 *            The priority of the event mapping.
-	 * @param ignoreCancellation
-	 *            Whether or not to ignore cancellation.
-	 * @return A method mapping using the given configurations or <tt>null</tt>
-	 *         if no mapping exists.
+	 *            The event type to retrieve the plan of.
+	 * @param key
+	 *            The key of the event, or <tt>null</tt> to retrieve only the
+	 *            handlers registered without a key.
+	 * @return The handlers registered for the event type and key, which is
+	 *         empty if no mapping exists.
 	 */
-	public synchronized Map<Method, EventListener> getMethodMap(
-			Class<? extends Event> event, EventPriority priority,
-			boolean ignoreCancellation) {
-		return backing.get(createKey(event, priority, ignoreCancellation));
+	public RegisteredHandler[] getHandlers(Class<? extends Event> event,
+			@Nullable Object key) {
+		pollCollected();
+		DispatchPlan plan = snapshot.getPlan(event);
+		if (key == null) {
+			return plan.handlers;
+		}
+		RegisteredHandler[] handlers = plan.keyed.get(key);
+		return handlers != null ? handlers : createKeyedPlan(event, key, plan);
 	}
 
 	/**
-	 * Creates a formatted key name with the given configurations.
+	 * Merges the handlers registered under a key with those of a dispatch
+	 * plan, keeping the result in the plan if the key has any handlers.
 	 * 
 	 * @param event
-	 *            The event type.
-	 * @param priority
-	 *            The priority of the event handler.
-	 * @param ignoreCancellation
-	 *            Whether or not to ignore cancellation.
-	 * @return A formatted key name with the given configurations.
+	 *            The event type of the plan.
+	 * @param key
+	 *            The key of the event.
+	 * @param plan
+	 *            The dispatch plan of the event type.
+	 * @return The handlers registered for the event type and key.
+	 */
+	private RegisteredHandler[] createKeyedPlan(Class<? extends Event> event,
+			Object key, DispatchPlan plan) {
+		int modifications = keyedModifications;
+
+		List<RegisteredHandler> handlers = null;
+		for (Class<? extends Event> type : EventTypes.supertypes(event)) {
+			Map<Object, RegisteredHandler[]> typeKeyed = keyedBacking.get(type);
+			RegisteredHandler[] keyHandlers = typeKeyed == null ? null
+					: typeKeyed.get(key);
+			if (keyHandlers != null) {
+				if (handlers == null) {
+					handlers = new ArrayList<RegisteredHandler>(
+							Arrays.asList(plan.handlers));
+				}
+				handlers.addAll(Arrays.asList(keyHandlers));
+			}
+		}
+		if (handlers == null) {
+			// Not kept, so that keys without handlers take no memory
+			return plan.handlers;
+		}
+
+		RegisteredHandler[] keyedPlan = order(handlers);
+		if (plan.keyed.putIfAbsent(key, keyedPlan) == null
+				&& modifications != keyedModifications) {
+			// A concurrent change may have been missed, so build it again
+			plan.keyed.remove(key, keyedPlan);
+		}
+		return keyedPlan;
+	}
+
+	/**
+	 * Returns a copy of the given handlers with another handler appended.
+	 * 
+	 * @param handlers
+	 *            The handlers to copy, or <tt>null</tt> if there are none.
+	 * @param handler
+	 *            The handler to append.
+	 * @return A copy of the handlers with the handler appended.
+	 */
+	private static RegisteredHandler[] append(
+			@Nullable RegisteredHandler[] handlers, RegisteredHandler handler) {
+		if (handlers == null) {
+			return new RegisteredHandler[] { handler };
+		}
+		handlers = Arrays.copyOf(handlers, handlers.length + 1);
+		handlers[handlers.length - 1] = handler;
+		return handlers;
+	}
+
+	/**
+	 * Returns a copy of the given handlers without a handler.
+	 * 
+	 * @param handlers
+	 *            The handlers to copy, which include the handler.
+	 * @param handler
+	 *            The handler to remove.
+	 * @return A copy of the handlers with the handler removed.
 	 */
-	private static int createKey(Class<? extends Event> event,
-			EventPriority priority, boolean ignoreCancellation) {
-		return (event.getName() + "-" + priority.name() + ":" + ignoreCancellation)
-				.hashCode();
+	private static RegisteredHandler[] without(RegisteredHandler[] handlers,
+			RegisteredHandler handler) {
+		RegisteredHandler[] copy = new RegisteredHandler[handlers.length - 1];
+		for (int i = 0, j = 0; i < handlers.length; i++) {
+			if (handlers[i] != handler) {
+				copy[j++] = handlers[i];
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns an array of the given handlers ordered by priority.
+	 * 
+	 * @param handlers
+	 *            The handlers to order.
+	 * @return An array of the handlers ordered by priority.
+	 */
+	private static RegisteredHandler[] order(List<RegisteredHandler> handlers) {
+		if (handlers.isEmpty()) {
+			return EMPTY_PLAN;
+		}
+
+		List<RegisteredHandler> plan = new ArrayList<RegisteredHandler>(
+				handlers);
+		// The sort is stable, so specificity and registration order are kept
+		// within a priority
+		Collections.sort(plan, PRIORITY_ORDER);
+		return plan.toArray(new RegisteredHandler[plan.size()]);
+	}
+
+	/**
+	 * A handler along with the event type it was registered for.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class Registration {
+
+		/**
+		 * The event type.
+		 */
+		private final Class<? extends Event> event;
+
+		/**
+		 * The registered handler.
+		 */
+		private final RegisteredHandler handler;
+
+		/**
+		 * Constructs a new registration.
+		 * 
+		 * @param event
+		 *            The event type.
+		 * @param handler
+		 *            The registered handler.
+		 */
+		private Registration(Class<? extends Event> event,
+				RegisteredHandler handler) {
+			this.event = event;
+			this.handler = handler;
+		}
+
+	}
+
+	/**
+	 * A weak reference to a listener, which remembers the identity hash code
+	 * of the listener so that its registrations can be found once it has been
+	 * collected.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class ListenerReference extends
+			WeakReference<EventListener> {
+
+		/**
+		 * The identity hash code of the listener.
+		 */
+		private final int hash;
+
+		/**
+		 * Constructs a new listener reference.
+		 * 
+		 * @param listener
+		 *            The listener to reference.
+		 * @param queue
+		 *            The queue to enqueue the reference on once the listener
+		 *            has been collected.
+		 */
+		private ListenerReference(EventListener listener,
+				ReferenceQueue<EventListener> queue) {
+			super(listener, queue);
+			this.hash = System.identityHashCode(listener);
+		}
+
+	}
+
+	/**
+	 * The handlers of a single concrete event type, in dispatch order.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class DispatchPlan {
+
+		/**
+		 * The handlers registered without a key.
+		 */
+		private final RegisteredHandler[] handlers;
+
+		/**
+		 * The handlers of each key which has been dispatched, including the
+		 * handlers registered without a key.
+		 */
+		private final ConcurrentMap<Object, RegisteredHandler[]> keyed = new ConcurrentHashMap<Object, RegisteredHandler[]>();
+
+		/**
+		 * Constructs a new dispatch plan.
+		 * 
+		 * @param handlers
+		 *            The handlers registered without a key.
+		 */
+		private DispatchPlan(RegisteredHandler[] handlers) {
+			this.handlers = handlers;
+		}
+
+	}
+
+	/**
+	 * An immutable view of the event mappings registered without a key, along
+	 * with the dispatch plans built from them.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class Snapshot {
+
+		/**
+		 * The handlers of each event type registered without a key, in order
+		 * of registration.
+		 */
+		private final Map<Class<? extends Event>, RegisteredHandler[]> backing;
+
+		/**
+		 * The dispatch plans which have been built from this snapshot.
+		 */
+		private final ConcurrentMap<Class<? extends Event>, DispatchPlan> plans = new ConcurrentHashMap<Class<? extends Event>, DispatchPlan>();
+
+		/**
+		 * Constructs a new snapshot.
+		 * 
+		 * @param backing
+		 *            The handlers of each event type registered without a key,
+		 *            in order of registration.
+		 */
+		private Snapshot(
+				Map<Class<? extends Event>, RegisteredHandler[]> backing) {
+			this.backing = backing;
+		}
+
+		/**
+		 * Returns the dispatch plan of the given event type, building it if
+		 * it has not yet been built.
+		 * 
+		 * @param event
+		 *            The event type to retrieve the plan of.
+		 * @return The dispatch plan of the event type.
+		 */
+		private DispatchPlan getPlan(Class<? extends Event> event) {
+			DispatchPlan plan = plans.get(event);
+			if (plan == null) {
+				/*
+				 * Plans are pure functions of the snapshot, so a race only
+				 * means the same plan is built twice.
+				 */
+				plans.putIfAbsent(event, plan = createPlan(event));
+			}
+			return plan;
+		}
+
+		/**
+		 * Creates the dispatch plan of the given event type.
+		 * 
+		 * @param event
+		 *            The event type to create the plan of.
+		 * @return The dispatch plan of the event type.
+		 */
+		private DispatchPlan createPlan(Class<? extends Event> event) {
+			List<RegisteredHandler> handlers = new ArrayList<RegisteredHandler>();
+			for (Class<? extends Event> type : EventTypes.supertypes(event)) {
+				RegisteredHandler[] typeHandlers = backing.get(type);
+				if (typeHandlers != null) {
+					handlers.addAll(Arrays.asList(typeHandlers));
+				}
+			}
+			return new DispatchPlan(order(handlers));
+		}
+
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,210 @@
+package mint.event;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatch statistics of a single event handler or event type, as recorded by
+ * {@link EventMetrics}.
+ * 
+ * <p>
+ * Every invocation is counted, but only sampled invocations are timed. Timed
+ * invocations are recorded in a histogram of power-of-two nanosecond buckets.
+ * Statistics are updated with striped counters, so recording from many
+ * threads at once does not contend.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventStatistics {
+
+	/**
+	 * The number of histogram buckets; bucket <tt>i</tt> counts durations of
+	 * at least <tt>2<sup>i</sup></tt> and less than
+	 * <tt>2<sup>i + 1</sup></tt> nanoseconds.
+	 */
+	public static final int BUCKETS = 64;
+
+	/**
+	 * The number of invocations.
+	 */
+	private final LongAdder invocations = new LongAdder();
+
+	/**
+	 * The number of timed invocations.
+	 */
+	private final LongAdder sampledInvocations = new LongAdder();
+
+	/**
+	 * The cumulative duration of timed invocations, in nanoseconds.
+	 */
+	private final LongAdder sampledNanos = new LongAdder();
+
+	/**
+	 * The number of timed invocations which exceeded the budget.
+	 */
+	private final LongAdder slowInvocations = new LongAdder();
+
+	/**
+	 * The latency histogram of timed invocations, with a striped counter for
+	 * every bucket.
+	 */
+	private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+	/**
+	 * Constructs new, empty event statistics.
+	 */
+	public EventStatistics() {
+		for (int i = 0; i < BUCKETS; i++) {
+			histogram[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records invocations.
+	 * 
+	 * @param count
+	 *            The number of invocations.
+	 */
+	void recordInvocations(int count) {
+		invocations.add(count);
+	}
+
+	/**
+	 * Records the duration of a timed invocation.
+	 * 
+	 * @param nanos
+	 *            The duration of the invocation, in nanoseconds.
+	 * @param slow
+	 *            Whether or not the invocation exceeded the budget.
+	 */
+	void recordSample(long nanos, boolean slow) {
+		sampledInvocations.increment();
+		sampledNanos.add(nanos);
+		histogram[bucketOf(nanos)].increment();
+		if (slow) {
+			slowInvocations.increment();
+		}
+	}
+
+	/**
+	 * Retrieves the number of invocations.
+	 * 
+	 * @return The number of invocations.
+	 */
+	public long getInvocations() {
+		return invocations.sum();
+	}
+
+	/**
+	 * Retrieves the number of timed invocations.
+	 * 
+	 * @return The number of timed invocations.
+	 */
+	public long getSampledInvocations() {
+		return sampledInvocations.sum();
+	}
+
+	/**
+	 * Retrieves the cumulative duration of timed invocations.
+	 * 
+	 * @return The cumulative duration of timed invocations, in nanoseconds.
+	 */
+	public long getSampledNanos() {
+		return sampledNanos.sum();
+	}
+
+	/**
+	 * Retrieves the mean duration of an invocation.
+	 * 
+	 * @return The mean duration of timed invocations, in nanoseconds, or
+	 *         <tt>0</tt> if none were timed.
+	 */
+	public long getMeanNanos() {
+		long sampled = getSampledInvocations();
+		return sampled == 0 ? 0 : getSampledNanos() / sampled;
+	}
+
+	/**
+	 * Retrieves the estimated cumulative duration of all invocations, timed
+	 * or not.
+	 * 
+	 * @return The estimated cumulative duration of all invocations, in
+	 *         nanoseconds.
+	 */
+	public long getEstimatedNanos() {
+		return getMeanNanos() * getInvocations();
+	}
+
+	/**
+	 * Retrieves the number of timed invocations which exceeded the budget.
+	 * 
+	 * @return The number of slow invocations.
+	 */
+	public long getSlowInvocations() {
+		return slowInvocations.sum();
+	}
+
+	/**
+	 * Retrieves a copy of the latency histogram.
+	 * 
+	 * @return The counts of each histogram bucket, as described by
+	 *         {@link #BUCKETS}.
+	 */
+	public long[] getHistogram() {
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = histogram[i].sum();
+		}
+		return counts;
+	}
+
+	/**
+	 * Retrieves an upper bound of the given percentile of invocation
+	 * duration.
+	 * 
+	 * @param percentile
+	 *            The percentile, between <tt>0</tt> and <tt>100</tt>.
+	 * @return The exclusive upper bound of the histogram bucket which contains
+	 *         the percentile, in nanoseconds, or <tt>0</tt> if no invocations
+	 *         were timed.
+	 */
+	public long getPercentileNanos(double percentile) {
+		long[] counts = getHistogram();
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long threshold = (long) Math.ceil(total * percentile / 100D);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= threshold && counts[i] > 0) {
+				return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (i + 1);
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the histogram bucket of a duration.
+	 * 
+	 * @param nanos
+	 *            The duration, in nanoseconds.
+	 * @return The bucket which counts the duration.
+	 */
+	private static int bucketOf(long nanos) {
+		return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+	}
+
+	@Override
+	public String toString() {
+		return "EventStatistics[invocations=" + getInvocations() + ", mean="
+				+ getMeanNanos() + "ns, p99<" + getPercentileNanos(99)
+				+ "ns, slow=" + getSlowInvocations() + "]";
+	}
+
+}
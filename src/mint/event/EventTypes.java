@@ -0,0 +1,102 @@
+package mint.event;
+
+import static mint.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import mint.NotConstructable;
+
+/**
+ * Static utility methods which reflect on the hierarchy of {@link Event}
+ * types.
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventTypes extends NotConstructable {
+
+	/**
+	 * The resolved event supertypes of each class, computed once per class.
+	 */
+	private static final ClassValue<List<Class<? extends Event>>> supertypes = new ClassValue<List<Class<? extends Event>>>() {
+
+		@Override
+		protected List<Class<? extends Event>> computeValue(Class<?> type) {
+			return resolve(type);
+		}
+
+	};
+
+	/**
+	 * Returns every event type which an event of the given type is an instance
+	 * of, including the given type itself.
+	 * 
+	 * <p>
+	 * The given type is first, followed by its superclasses from nearest to
+	 * furthest, and then by its interfaces from nearest to furthest. Only types
+	 * which are themselves {@link Event}s are included. The result is computed
+	 * once per type.
+	 * </p>
+	 * 
+	 * @param event
+	 *            The event type to resolve the supertypes of.
+	 * @return An unmodifiable list of the event type's supertypes.
+	 * @throws NullPointerException
+	 *             If <tt>event</tt> is <tt>null</tt>.
+	 */
+	public static List<Class<? extends Event>> supertypes(
+			Class<? extends Event> event) {
+		return supertypes.get(checkNotNull(event));
+	}
+
+	/**
+	 * Resolves the event supertypes of the given type.
+	 * 
+	 * @param type
+	 *            The type to resolve the supertypes of.
+	 * @return An unmodifiable list of the type's event supertypes.
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<Class<? extends Event>> resolve(Class<?> type) {
+		Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+		for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+			classes.add(c);
+		}
+
+		Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+		List<Class<?>> pending = new ArrayList<Class<?>>(classes);
+		// Breadth-first, so that nearer interfaces come first
+		for (int i = 0; i < pending.size(); i++) {
+			for (Class<?> c : pending.get(i).getInterfaces()) {
+				if (interfaces.add(c)) {
+					pending.add(c);
+				}
+			}
+		}
+		classes.addAll(interfaces);
+
+		List<Class<? extends Event>> result = new ArrayList<Class<? extends Event>>();
+		for (Class<?> c : classes) {
+			if (Event.class.isAssignableFrom(c)) {
+				// Checked by the condition above
+				result.add((Class<? extends Event>) c);
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * <tt>EventTypes</tt> is a static-utility class and should therefore never
+	 * be constructed.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             If construction occurs.
+	 */
+	private EventTypes() {
+		super();
+	}
+
+}
@@ -0,0 +1,68 @@
+package mint.event;
+
+import java.util.Collection;
+import java.util.concurrent.Future;
+
+import mint.Forwarder;
+
+/**
+ * An event manager which forwards every method call to a delegate event
+ * manager, so that a decorator need only override the methods whose behaviour
+ * it changes.
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public abstract class ForwardingEventManager extends Forwarder<EventManager>
+		implements EventManager {
+
+	/**
+	 * Constructs a new forwarding event manager.
+	 * 
+	 * @param delegate
+	 *            The event manager which executes forwarded method calls.
+	 */
+	public ForwardingEventManager(EventManager delegate) {
+		super(delegate);
+	}
+
+	@Override
+	public void dispatchEvent(Event event) {
+		delegate().dispatchEvent(event);
+	}
+
+	@Override
+	public void dispatchAll(Collection<? extends Event> events) {
+		delegate().dispatchAll(events);
+	}
+
+	@Override
+	public <E extends Event> Future<E> dispatchAsync(E event) {
+		return delegate().dispatchAsync(event);
+	}
+
+	@Override
+	public void registerListener(EventListener listener) {
+		delegate().registerListener(listener);
+	}
+
+	@Override
+	public void registerListener(EventListener listener, Object key) {
+		delegate().registerListener(listener, key);
+	}
+
+	@Override
+	public void registerWeakListener(EventListener listener) {
+		delegate().registerWeakListener(listener);
+	}
+
+	@Override
+	public void registerWeakListener(EventListener listener, Object key) {
+		delegate().registerWeakListener(listener, key);
+	}
+
+	@Override
+	public void unregisterListener(EventListener listener) {
+		delegate().unregisterListener(listener);
+	}
+
+}
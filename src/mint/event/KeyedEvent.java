@@ -0,0 +1,31 @@
+package mint.event;
+
+/**
+ * An {@link Event} which carries a key, such as the identifier of the entity
+ * which the event concerns.
+ * 
+ * <p>
+ * Listeners registered under a key (see
+ * {@link EventManager#registerListener(EventListener, Object)}) only handle
+ * keyed events with an equal key, so an event for one entity is never
+ * dispatched to the listeners of every other entity.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public interface KeyedEvent extends Event {
+
+	/**
+	 * Retrieves the key of the event.
+	 * 
+	 * <p>
+	 * Keys are compared using {@link Object#equals(Object)}, and so should
+	 * implement it along with {@link Object#hashCode()}.
+	 * </p>
+	 * 
+	 * @return The key of the event, or <tt>null</tt> if the event should only
+	 *         be handled by listeners registered without a key.
+	 */
+	Object getKey();
+
+}
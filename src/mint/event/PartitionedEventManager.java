@@ -0,0 +1,256 @@
+package mint.event;
+
+import static mint.Preconditions.checkArgument;
+import static mint.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mint.Nullable;
+
+/**
+ * An event manager which shards the dispatch of {@link KeyedEvent}s across a
+ * number of single-threaded <i>lanes</i>, chosen by the key of each event.
+ * 
+ * <p>
+ * Events with equal keys are always dispatched by the same lane, so they are
+ * handled strictly in the order they were dispatched, while events with
+ * different keys may be handled in parallel. Keyed events are dispatched
+ * asynchronously: {@link #dispatchEvent(Event)} returns once the event has
+ * been queued on its lane. Keyed events whose key is <tt>null</tt> all share
+ * the first lane. Events which are not keyed have no partition, and are
+ * dispatched by the delegate on the calling thread.
+ * </p>
+ * 
+ * <p>
+ * Listeners are registered with the delegate, so a handler may be invoked by
+ * any lane and must be safe to call from multiple threads unless every event
+ * it handles shares a key.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class PartitionedEventManager extends ForwardingEventManager {
+
+	/**
+	 * The counter used to name the lane threads of all partitioned event
+	 * managers.
+	 */
+	private static final AtomicInteger threadCount = new AtomicInteger();
+
+	/**
+	 * The single-threaded executors which dispatch the events of each
+	 * partition.
+	 */
+	private final ExecutorService[] lanes;
+
+	/**
+	 * Constructs a new partitioned event manager.
+	 * 
+	 * @param delegate
+	 *            The event manager which dispatches events on their lane.
+	 * @param lanes
+	 *            The number of lanes.
+	 * @throws IllegalArgumentException
+	 *             If there is not at least one lane.
+	 */
+	public PartitionedEventManager(EventManager delegate, int lanes) {
+		super(checkNotNull(delegate));
+		checkArgument(lanes > 0, "There must be at least one lane");
+
+		ThreadFactory factory = new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "mint-event-lane-"
+						+ threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+
+		};
+		this.lanes = new ExecutorService[lanes];
+		for (int i = 0; i < lanes; i++) {
+			this.lanes[i] = Executors.newSingleThreadExecutor(factory);
+		}
+	}
+
+	/**
+	 * Constructs a new partitioned event manager with a lane for every
+	 * available processor.
+	 * 
+	 * @param delegate
+	 *            The event manager which dispatches events on their lane.
+	 */
+	public PartitionedEventManager(EventManager delegate) {
+		this(delegate, Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public void dispatchEvent(final Event event) {
+		checkNotNull(event);
+
+		if (!(event instanceof KeyedEvent)) {
+			super.dispatchEvent(event);
+			return;
+		}
+		laneOf((KeyedEvent) event).execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					delegate().dispatchEvent(event);
+				} catch (RuntimeException e) {
+					// Nowhere to propagate
+					e.printStackTrace();
+				}
+			}
+
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Keyed events are queued on their lanes in a single batch per lane, in
+	 * the order of the collection. Events which are not keyed are dispatched
+	 * on the calling thread once every keyed event has been queued.
+	 * </p>
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void dispatchAll(Collection<? extends Event> events) {
+		checkNotNull(events);
+
+		List<Event>[] batches = (List<Event>[]) new List<?>[lanes.length];
+		List<Event> unkeyed = null;
+		for (Event event : events) {
+			checkNotNull(event);
+			if (event instanceof KeyedEvent) {
+				int lane = partitionOf(((KeyedEvent) event).getKey());
+				if (batches[lane] == null) {
+					batches[lane] = new ArrayList<Event>();
+				}
+				batches[lane].add(event);
+			} else {
+				if (unkeyed == null) {
+					unkeyed = new ArrayList<Event>();
+				}
+				unkeyed.add(event);
+			}
+		}
+
+		for (int i = 0; i < batches.length; i++) {
+			final List<Event> batch = batches[i];
+			if (batch == null) {
+				continue;
+			}
+			lanes[i].execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						delegate().dispatchAll(batch);
+					} catch (RuntimeException e) {
+						// Nowhere to propagate
+						e.printStackTrace();
+					}
+				}
+
+			});
+		}
+		if (unkeyed != null) {
+			super.dispatchAll(unkeyed);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Keyed events are dispatched on their lane, so their order relative to
+	 * other events of the same key is kept.
+	 * </p>
+	 */
+	@Override
+	public <E extends Event> Future<E> dispatchAsync(final E event) {
+		checkNotNull(event);
+
+		if (!(event instanceof KeyedEvent)) {
+			return super.dispatchAsync(event);
+		}
+		FutureTask<E> task = new FutureTask<E>(new Runnable() {
+
+			@Override
+			public void run() {
+				delegate().dispatchEvent(event);
+			}
+
+		}, event);
+		laneOf((KeyedEvent) event).execute(task);
+		return task;
+	}
+
+	/**
+	 * Stops accepting keyed events, and waits for the lanes to dispatch the
+	 * events which have already been queued.
+	 * 
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting.
+	 */
+	public void shutdown() throws InterruptedException {
+		for (ExecutorService lane : lanes) {
+			lane.shutdown();
+		}
+		for (ExecutorService lane : lanes) {
+			lane.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Retrieves the number of lanes.
+	 * 
+	 * @return The number of lanes which events are sharded across.
+	 */
+	public int getLanes() {
+		return lanes.length;
+	}
+
+	/**
+	 * Returns the lane which dispatches the given event.
+	 * 
+	 * @param event
+	 *            The keyed event.
+	 * @return The lane of the event's key.
+	 */
+	private ExecutorService laneOf(KeyedEvent event) {
+		return lanes[partitionOf(event.getKey())];
+	}
+
+	/**
+	 * Returns the index of the lane which dispatches events of a key.
+	 * 
+	 * @param key
+	 *            The key of the events, which may be <tt>null</tt>.
+	 * @return The index of the key's lane.
+	 */
+	private int partitionOf(@Nullable Object key) {
+		if (key == null) {
+			return 0;
+		}
+		int hash = key.hashCode();
+		// Spread the higher bits, which poor hashes tend to vary
+		hash ^= hash >>> 16;
+		return (hash & Integer.MAX_VALUE) % lanes.length;
+	}
+
+}
@@ -0,0 +1,187 @@
+package mint.event;
+
+import java.lang.ref.Reference;
+
+import mint.Nullable;
+
+/**
+ * An {@link EventHandler} method bound to the {@link EventListener} which
+ * contains it, along with the configuration of its annotation.
+ * 
+ * <p>
+ * The listener may be held through a {@link Reference}, in which case the
+ * handler is no longer invoked once the listener has been collected.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class RegisteredHandler {
+
+	/**
+	 * The listener which contains the event handler method, or <tt>null</tt>
+	 * if it is held through {@link #reference}.
+	 */
+	private final EventListener listener;
+
+	/**
+	 * The reference to the listener which contains the event handler method,
+	 * or <tt>null</tt> if it is held strongly.
+	 */
+	private final Reference<? extends EventListener> reference;
+
+	/**
+	 * The definition of the event handler method.
+	 */
+	private final EventHandlerDefinition definition;
+
+	/**
+	 * The key which the event handler is registered under, or <tt>null</tt>
+	 * if it handles events regardless of their key.
+	 */
+	private final Object key;
+
+	/**
+	 * Constructs a new registered handler which holds its listener strongly.
+	 * 
+	 * @param listener
+	 *            The listener which contains the event handler method.
+	 * @param definition
+	 *            The definition of the event handler method.
+	 * @param key
+	 *            The key which the event handler is registered under, or
+	 *            <tt>null</tt> if it handles events regardless of their key.
+	 */
+	public RegisteredHandler(EventListener listener,
+			EventHandlerDefinition definition, @Nullable Object key) {
+		this(listener, null, definition, key);
+	}
+
+	/**
+	 * Constructs a new registered handler which holds its listener through a
+	 * reference.
+	 * 
+	 * @param reference
+	 *            The reference to the listener which contains the event
+	 *            handler method.
+	 * @param definition
+	 *            The definition of the event handler method.
+	 * @param key
+	 *            The key which the event handler is registered under, or
+	 *            <tt>null</tt> if it handles events regardless of their key.
+	 */
+	public RegisteredHandler(Reference<? extends EventListener> reference,
+			EventHandlerDefinition definition, @Nullable Object key) {
+		this(null, reference, definition, key);
+	}
+
+	/**
+	 * Constructs a new registered handler.
+	 * 
+	 * @param listener
+	 *            The listener which contains the event handler method, or
+	 *            <tt>null</tt> if it is held through <tt>reference</tt>.
+	 * @param reference
+	 *            The reference to the listener which contains the event
+	 *            handler method, or <tt>null</tt> if it is held strongly.
+	 * @param definition
+	 *            The definition of the event handler method.
+	 * @param key
+	 *            The key which the event handler is registered under, or
+	 *            <tt>null</tt> if it handles events regardless of their key.
+	 */
+	private RegisteredHandler(EventListener listener,
+			Reference<? extends EventListener> reference,
+			EventHandlerDefinition definition, Object key) {
+		this.listener = listener;
+		this.reference = reference;
+		this.definition = definition;
+		this.key = key;
+	}
+
+	/**
+	 * Invokes the event handler method upon its listener, unless the listener
+	 * has been collected.
+	 * 
+	 * @param event
+	 *            The event to handle.
+	 * @throws Exception
+	 *             If the event handler method throws an exception.
+	 */
+	public void invoke(Event event) throws Exception {
+		EventListener listener = getListener();
+		if (listener != null) {
+			definition.getInvoker().invoke(listener, event);
+		}
+	}
+
+	/**
+	 * Retrieves the listener which contains the event handler method.
+	 * 
+	 * @return The handler's listener, or <tt>null</tt> if it has been
+	 *         collected.
+	 */
+	@Nullable
+	public EventListener getListener() {
+		return reference == null ? listener : reference.get();
+	}
+
+	/**
+	 * Determines whether the listener which contains the event handler method
+	 * has been collected.
+	 * 
+	 * @return Whether or not the handler's listener has been collected.
+	 */
+	public boolean isCollected() {
+		return reference != null && reference.get() == null;
+	}
+
+	/**
+	 * Retrieves the definition of the event handler method.
+	 * 
+	 * @return The handler's {@link #definition}.
+	 */
+	public EventHandlerDefinition getDefinition() {
+		return definition;
+	}
+
+	/**
+	 * Retrieves the priority of the event handler.
+	 * 
+	 * @return The priority of the handler's definition.
+	 */
+	public EventPriority getPriority() {
+		return definition.getPriority();
+	}
+
+	/**
+	 * Retrieves whether or not the event handler ignores cancellation.
+	 * 
+	 * @return Whether the event handler should execute even if the event has
+	 *         been cancelled.
+	 */
+	public boolean ignoresCancelled() {
+		return definition.ignoresCancelled();
+	}
+
+	/**
+	 * Retrieves where the event handler is executed in relation to the
+	 * dispatching thread.
+	 * 
+	 * @return The execution of the handler's definition.
+	 */
+	public EventExecution getExecution() {
+		return definition.getExecution();
+	}
+
+	/**
+	 * Retrieves the key which the event handler is registered under.
+	 * 
+	 * @return The handler's {@link #key}, or <tt>null</tt> if it handles
+	 *         events regardless of their key.
+	 */
+	@Nullable
+	public Object getKey() {
+		return key;
+	}
+
+}
@@ -0,0 +1,28 @@
+package mint.event;
+
+/**
+ * Receives reports of event handlers which exceeded the budget of an
+ * {@link EventMetrics}.
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public interface SlowHandlerReporter {
+
+	/**
+	 * Reports an event handler invocation which exceeded the budget.
+	 * 
+	 * <p>
+	 * This is called on the thread which invoked the event handler, so
+	 * implementations should return quickly.
+	 * </p>
+	 * 
+	 * @param handler
+	 *            The definition of the slow event handler.
+	 * @param event
+	 *            The event which was handled.
+	 * @param nanos
+	 *            The duration of the invocation, in nanoseconds.
+	 */
+	void report(EventHandlerDefinition handler, Event event, long nanos);
+
+}
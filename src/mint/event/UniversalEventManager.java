@@ -2,10 +2,13 @@ package mint.event;
 
 import static mint.Preconditions.checkNotNull;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.Executor;
 
 import mint.Nullable;
 import mint.inject.Singleton;
@@ -18,65 +21,332 @@ import mint.inject.Singleton;
 @Singleton
 public final class UniversalEventManager extends AbstractEventManager {
 
+	/**
+	 * The metrics which record dispatches, or <tt>null</tt> if dispatches are
+	 * not recorded.
+	 */
+	private volatile EventMetrics metrics;
+
+	/**
+	 * Constructs a new event manager which runs asynchronous dispatches on the
+	 * {@link EventExecutors#shared()} executor.
+	 */
+	public UniversalEventManager() {
+		super();
+	}
+
+	/**
+	 * Constructs a new event manager.
+	 * 
+	 * @param asyncExecutor
+	 *            The executor which runs asynchronous event dispatches, such
+	 *            as {@link EventExecutors#virtual()}.
+	 */
+	public UniversalEventManager(Executor asyncExecutor) {
+		super(asyncExecutor);
+	}
+
+	/**
+	 * Sets the metrics which record the dispatches of this event manager.
+	 * 
+	 * @param metrics
+	 *            The metrics to record dispatches with, or <tt>null</tt> to
+	 *            stop recording.
+	 */
+	public void setMetrics(@Nullable EventMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Retrieves the metrics which record the dispatches of this event manager.
+	 * 
+	 * @return The {@link #metrics}, or <tt>null</tt> if dispatches are not
+	 *         recorded.
+	 */
+	@Nullable
+	public EventMetrics getMetrics() {
+		return metrics;
+	}
+
 	@Override
 	public void dispatchEvent(Event event) {
 		checkNotNull(event);
 
 		CancellableEvent cancellableEvent = null;
-		boolean cancellable;
-		if (cancellable = event instanceof CancellableEvent) {
+		if (event instanceof CancellableEvent) {
 			cancellableEvent = (CancellableEvent) event;
 		}
 
-		fireEvents(false, event, cancellableEvent, cancellable);
-		fireEvents(true, event, cancellableEvent, cancellable);
+		EventMetrics metrics = this.metrics;
+		if (metrics == null) {
+			fireEvents(getHandlers(event), event, cancellableEvent);
+			return;
+		}
+		long start = metrics.sample() ? System.nanoTime() : -1;
+		fireEvents(getHandlers(event), event, cancellableEvent);
+		metrics.recordEvent(event.getClass(), 1,
+				start < 0 ? -1 : System.nanoTime() - start);
+	}
+
+	@Override
+	public void dispatchAll(Collection<? extends Event> events) {
+		checkNotNull(events);
+
+		Event[] batch = events.toArray(new Event[events.size()]);
+		if (batch.length == 0) {
+			return;
+		}
+
+		Class<? extends Event> type = checkNotNull(batch[0]).getClass();
+		boolean homogeneous = true;
+		for (Event event : batch) {
+			if (checkNotNull(event).getClass() != type) {
+				homogeneous = false;
+			}
+		}
+		if (homogeneous && !KeyedEvent.class.isAssignableFrom(type)) {
+			fireBatch(type, batch, batch.length);
+			return;
+		}
+
+		// Group the events by type, keeping their order within each type
+		Map<Class<? extends Event>, List<Event>> groups = new HashMap<Class<? extends Event>, List<Event>>();
+		List<List<Event>> order = new ArrayList<List<Event>>();
+		for (Event event : batch) {
+			if (event instanceof KeyedEvent) {
+				// Keyed events may each have a different plan
+				order.add(Collections.singletonList(event));
+				continue;
+			}
+			List<Event> group = groups.get(event.getClass());
+			if (group == null) {
+				groups.put(event.getClass(), group = new ArrayList<Event>());
+				order.add(group);
+			}
+			group.add(event);
+		}
+		// Groups are fired in the order their first event appeared, and every
+		// group fits in the batch array, so it is reused for each
+		for (List<Event> group : order) {
+			Event first = group.get(0);
+			if (first instanceof KeyedEvent) {
+				dispatchEvent(first);
+			} else {
+				fireBatch(first.getClass(), group.toArray(batch), group.size());
+			}
+		}
+	}
+
+	/**
+	 * Fires a batch of events of the same type, recording it with the
+	 * {@link #metrics} if there are any.
+	 * 
+	 * @param type
+	 *            The type of the events.
+	 * @param events
+	 *            The events to fire.
+	 * @param count
+	 *            The number of events, from the start of <tt>events</tt>, to
+	 *            fire.
+	 */
+	private void fireBatch(Class<? extends Event> type, Event[] events,
+			int count) {
+		EventMetrics metrics = this.metrics;
+		if (metrics == null) {
+			fireEvents(getRegistry().getHandlers(type), events, count);
+			return;
+		}
+		long start = metrics.sample() ? System.nanoTime() : -1;
+		fireEvents(getRegistry().getHandlers(type), events, count);
+		// The events share the duration of the batch
+		metrics.recordEvent(type, count,
+				start < 0 ? -1 : (System.nanoTime() - start) / count);
+	}
+
+	/**
+	 * Returns the dispatch plan of the specified event, considering its key if
+	 * it is a {@link KeyedEvent}.
+	 * 
+	 * @param event
+	 *            The event to retrieve the plan of.
+	 * @return The handlers of the event, in dispatch order.
+	 */
+	private RegisteredHandler[] getHandlers(Event event) {
+		if (event instanceof KeyedEvent) {
+			return getRegistry().getHandlers(event.getClass(),
+					((KeyedEvent) event).getKey());
+		}
+		return getRegistry().getHandlers(event.getClass());
 	}
 
 	/**
-	 * Fires all events of the specified type using the specified
-	 * configurations.
+	 * Fires the specified event to every handler of a dispatch plan.
 	 * 
-	 * @param considerCancellation
-	 *            Whether or not to consider cancellation.
+	 * <p>
+	 * Handlers are fired in the order of the plan. Once the event has been
+	 * cancelled, only handlers which ignore cancellation will run. Off-thread
+	 * handlers are scheduled in their place without being waited for.
+	 * </p>
+	 * 
+	 * @param handlers
+	 *            The dispatch plan of the event's type.
 	 * @param event
-	 *            The event which specifies the type of events to fire.
+	 *            The event to fire.
 	 * @param cancellableEvent
-	 *            The cancellable event instance.
-	 * @param cancellable
-	 *            Whether or not the event is cancellable.
+	 *            The cancellable event instance, or <tt>null</tt> if the event
+	 *            is not cancellable.
 	 */
-	private void fireEvents(boolean considerCancellation, Event event,
-			@Nullable CancellableEvent cancellableEvent, boolean cancellable) {
-		// Event handlers that consider cancellation will run
-		for (EventPriority priority : EventPriority.values()) {
-			Map<Method, EventListener> internalMapping = getRegistry()
-					.getMethodMap(event.getClass(), priority,
-							!considerCancellation);
-			if (internalMapping != null) {
-				for (Entry<Method, EventListener> entry : internalMapping
-						.entrySet()) {
-					try {
-						entry.getKey().invoke(entry.getValue(), event);
-					} catch (IllegalAccessException e) {
-						e.printStackTrace();
-					} catch (IllegalArgumentException e) {
-						e.printStackTrace();
-					} catch (InvocationTargetException e) {
-						/*
-						 * Delegate any exceptions that occur from the method to
-						 * a runtime exception.
-						 */
-						throw new RuntimeException(e);
-					}
-					// Immediately return in the case of the event being
-					// cancelled.
-					if (considerCancellation && cancellable
-							&& cancellableEvent.isCancelled()) {
-						return;
-					}
+	private void fireEvents(RegisteredHandler[] handlers, Event event,
+			@Nullable CancellableEvent cancellableEvent) {
+		for (RegisteredHandler handler : handlers) {
+			if (cancellableEvent != null && !handler.ignoresCancelled()
+					&& cancellableEvent.isCancelled()) {
+				continue;
+			}
+			fireEvent(handler, event);
+		}
+	}
+
+	/**
+	 * Fires a batch of events of the same type to every handler of their
+	 * dispatch plan.
+	 * 
+	 * <p>
+	 * Each handler is fired for every event of the batch before the next
+	 * handler is fired, so a single event still reaches its handlers in the
+	 * order of the plan. Cancellation is considered per event.
+	 * </p>
+	 * 
+	 * @param handlers
+	 *            The dispatch plan of the events' type.
+	 * @param events
+	 *            The events to fire.
+	 * @param count
+	 *            The number of events, from the start of <tt>events</tt>, to
+	 *            fire.
+	 */
+	private void fireEvents(RegisteredHandler[] handlers, Event[] events,
+			int count) {
+		for (RegisteredHandler handler : handlers) {
+			boolean ignoresCancelled = handler.ignoresCancelled();
+			for (int i = 0; i < count; i++) {
+				Event event = events[i];
+				if (!ignoresCancelled && event instanceof CancellableEvent
+						&& ((CancellableEvent) event).isCancelled()) {
+					continue;
 				}
+				fireEvent(handler, event);
 			}
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Fires the specified event to a single handler, scheduling it if the
+	 * handler is off-thread.
+	 * 
+	 * @param handler
+	 *            The handler to fire.
+	 * @param event
+	 *            The event to fire.
+	 */
+	private void fireEvent(RegisteredHandler handler, Event event) {
+		EventMetrics metrics = this.metrics;
+		if (handler.getExecution() != EventExecution.INLINE) {
+			getExecutor(handler.getExecution()).execute(
+					new HandlerTask(handler, event, metrics));
+			return;
+		}
+		try {
+			invoke(handler, event, metrics);
+		} catch (Exception e) {
+			/*
+			 * Delegate any exceptions that occur from the method to a runtime
+			 * exception.
+			 */
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Invokes a single handler, recording the invocation with the given
+	 * metrics if there are any.
+	 * 
+	 * @param handler
+	 *            The handler to invoke.
+	 * @param event
+	 *            The event to handle.
+	 * @param metrics
+	 *            The metrics to record the invocation with, or <tt>null</tt>
+	 *            if it should not be recorded.
+	 * @throws Exception
+	 *             If the event handler method throws an exception.
+	 */
+	private static void invoke(RegisteredHandler handler, Event event,
+			@Nullable EventMetrics metrics) throws Exception {
+		if (metrics == null) {
+			handler.invoke(event);
+			return;
+		}
+		long start = metrics.sample() ? System.nanoTime() : -1;
+		try {
+			handler.invoke(event);
+		} finally {
+			metrics.recordHandler(handler.getDefinition(), event,
+					start < 0 ? -1 : System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * A task which runs a single off-thread event handler.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class HandlerTask implements Runnable {
+
+		/**
+		 * The handler to run.
+		 */
+		private final RegisteredHandler handler;
+
+		/**
+		 * The event to handle.
+		 */
+		private final Event event;
+
+		/**
+		 * The metrics to record the invocation with, or <tt>null</tt> if it
+		 * should not be recorded.
+		 */
+		private final EventMetrics metrics;
+
+		/**
+		 * Constructs a new handler task.
+		 * 
+		 * @param handler
+		 *            The handler to run.
+		 * @param event
+		 *            The event to handle.
+		 * @param metrics
+		 *            The metrics to record the invocation with, or
+		 *            <tt>null</tt> if it should not be recorded.
+		 */
+		private HandlerTask(RegisteredHandler handler, Event event,
+				@Nullable EventMetrics metrics) {
+			this.handler = handler;
+			this.event = event;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void run() {
+			try {
+				invoke(handler, event, metrics);
+			} catch (Exception e) {
+				// Nowhere to propagate
+				e.printStackTrace();
+			}
+		}
+
+	}
+
+}
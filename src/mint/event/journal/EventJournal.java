@@ -0,0 +1,441 @@
+package mint.event.journal;
+
+import static mint.Preconditions.checkArgument;
+import static mint.Preconditions.checkNotNull;
+import static mint.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import mint.event.Event;
+import mint.event.EventCodecRegistry;
+import mint.event.EventManager;
+import mint.network.packet.NIOPacketReader;
+import mint.network.packet.NIOPacketWriter;
+
+/**
+ * An append-only journal of events, written to a directory of memory-mapped
+ * segment files.
+ * 
+ * <p>
+ * Appending an event encodes it straight into the mapped segment, so it costs
+ * a memory copy rather than a system call. Appended events are forced to disk
+ * periodically by a background thread, in a single <i>group commit</i> for
+ * every event appended since the last; an event is durable once the commit
+ * interval has passed, but survives a crash of the process as soon as it has
+ * been appended. When a segment is full, appending continues in a new one.
+ * </p>
+ * 
+ * <p>
+ * Each record of a segment is the length of its payload, a CRC-32 checksum of
+ * its payload, and the payload: the event as written by
+ * {@link EventCodecRegistry#encode(Event, mint.network.packet.PacketWriter)}.
+ * A record with a length of <tt>0</tt> ends its segment, so
+ * {@link #replay(File, EventCodecRegistry, EventManager) replaying} stops at
+ * the first record which was never completely written.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventJournal implements Closeable {
+
+	/**
+	 * The file name suffix of segment files.
+	 */
+	public static final String SEGMENT_SUFFIX = ".journal";
+
+	/**
+	 * The size of a record's length and checksum, in bytes.
+	 */
+	private static final int HEADER_SIZE = 8;
+
+	/**
+	 * Accepts the names of segment files.
+	 */
+	private static final FilenameFilter SEGMENT_FILTER = new FilenameFilter() {
+
+		@Override
+		public boolean accept(File directory, String name) {
+			return name.endsWith(SEGMENT_SUFFIX);
+		}
+
+	};
+
+	/**
+	 * The directory which contains the segment files.
+	 */
+	private final File directory;
+
+	/**
+	 * The codecs which encode journaled events.
+	 */
+	private final EventCodecRegistry codecs;
+
+	/**
+	 * The size of each segment file, in bytes.
+	 */
+	private final int segmentSize;
+
+	/**
+	 * The checksum used to write records.
+	 */
+	private final CRC32 checksum = new CRC32();
+
+	/**
+	 * The executor which commits appended events.
+	 */
+	private final ScheduledExecutorService committer;
+
+	/**
+	 * The index of the current segment.
+	 */
+	private long segmentIndex;
+
+	/**
+	 * The current segment.
+	 */
+	private volatile MappedByteBuffer segment;
+
+	/**
+	 * The writer which encodes events into the current segment.
+	 */
+	private NIOPacketWriter writer;
+
+	/**
+	 * Whether events have been appended since the last commit.
+	 */
+	private volatile boolean dirty;
+
+	/**
+	 * Whether the journal has been closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Opens a new journal, which appends to a new segment after any existing
+	 * segments of its directory.
+	 * 
+	 * @param directory
+	 *            The directory which contains the segment files.
+	 * @param codecs
+	 *            The codecs which encode journaled events.
+	 * @param segmentSize
+	 *            The size of each segment file, in bytes, which bounds the
+	 *            size of a single event.
+	 * @param commitInterval
+	 *            The interval between group commits.
+	 * @param unit
+	 *            The unit of <tt>commitInterval</tt>.
+	 * @throws IOException
+	 *             If the directory or the first segment cannot be created.
+	 */
+	public EventJournal(File directory, EventCodecRegistry codecs,
+			int segmentSize, long commitInterval, TimeUnit unit)
+			throws IOException {
+		checkArgument(segmentSize > HEADER_SIZE, "Segment size is too small: %d",
+				segmentSize);
+		checkArgument(commitInterval > 0, "Commit interval must be positive");
+
+		this.directory = checkNotNull(directory);
+		this.codecs = checkNotNull(codecs);
+		this.segmentSize = segmentSize;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create journal directory "
+					+ directory);
+		}
+
+		for (File file : segments(directory)) {
+			segmentIndex = Math.max(segmentIndex, indexOf(file));
+		}
+		roll();
+
+		this.committer = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable,
+								"mint-event-journal");
+						thread.setDaemon(true);
+						return thread;
+					}
+
+				});
+		committer.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				commit();
+			}
+
+		}, commitInterval, commitInterval, unit);
+	}
+
+	/**
+	 * Opens a new journal with 64 MiB segments, committed every 10
+	 * milliseconds.
+	 * 
+	 * @param directory
+	 *            The directory which contains the segment files.
+	 * @param codecs
+	 *            The codecs which encode journaled events.
+	 * @throws IOException
+	 *             If the directory or the first segment cannot be created.
+	 */
+	public EventJournal(File directory, EventCodecRegistry codecs)
+			throws IOException {
+		this(directory, codecs, 64 << 20, 10, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Appends an event to the journal.
+	 * 
+	 * @param event
+	 *            The event to append, whose class must be registered with the
+	 *            journal's codecs.
+	 * @throws IllegalArgumentException
+	 *             If the event is not registered, or is too large for a
+	 *             segment.
+	 * @throws IllegalStateException
+	 *             If the journal has been closed, or a new segment cannot be
+	 *             created.
+	 */
+	public synchronized void append(Event event) {
+		checkState(!closed, "The journal has been closed");
+
+		int start = segment.position();
+		if (!encode(event, start)) {
+			try {
+				roll();
+			} catch (IOException e) {
+				throw new IllegalStateException(
+						"Unable to create a journal segment", e);
+			}
+
+			start = segment.position();
+			if (!encode(event, start)) {
+				throw new IllegalArgumentException(event
+						+ " is too large for a journal segment");
+			}
+		}
+
+		int length = segment.position() - start - HEADER_SIZE;
+		ByteBuffer payload = segment.duplicate();
+		payload.limit(segment.position()).position(start + HEADER_SIZE);
+		checksum.reset();
+		checksum.update(payload);
+
+		segment.putInt(start + 4, (int) checksum.getValue());
+		// The length is written last, as it marks the record complete
+		segment.putInt(start, length);
+		dirty = true;
+	}
+
+	/**
+	 * Forces every appended event to disk, without waiting for the next group
+	 * commit.
+	 */
+	public void commit() {
+		if (dirty) {
+			dirty = false;
+			segment.force();
+		}
+	}
+
+	/**
+	 * Commits every appended event and closes the journal.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		committer.shutdown();
+		try {
+			committer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		segment.force();
+	}
+
+	/**
+	 * Encodes an event into the current segment after the header of its
+	 * record.
+	 * 
+	 * @param event
+	 *            The event to encode.
+	 * @param start
+	 *            The position of the record.
+	 * @return Whether or not the record fit in the current segment.
+	 */
+	private boolean encode(Event event, int start) {
+		if (segment.remaining() <= HEADER_SIZE) {
+			return false;
+		}
+		segment.position(start + HEADER_SIZE);
+		boolean encoded = false;
+		try {
+			codecs.encode(event, writer);
+			encoded = true;
+		} catch (BufferOverflowException e) {
+			return false;
+		} finally {
+			if (!encoded) {
+				// Erase the partial record so that the next one can follow it
+				for (int i = start + HEADER_SIZE; i < segment.position(); i++) {
+					segment.put(i, (byte) 0);
+				}
+				segment.position(start);
+				// The codec may have left the writer in bit access mode
+				writer = new NIOPacketWriter(segment);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Maps the next segment, handing the full one to the committer to be
+	 * forced to disk.
+	 * 
+	 * @throws IOException
+	 *             If the segment file cannot be created or mapped.
+	 */
+	private void roll() throws IOException {
+		final MappedByteBuffer full = segment;
+		File file = new File(directory, String.format("%016d%s",
+				++segmentIndex, SEGMENT_SUFFIX));
+		RandomAccessFile access = new RandomAccessFile(file, "rw");
+		try {
+			segment = access.getChannel().map(MapMode.READ_WRITE, 0,
+					segmentSize);
+		} finally {
+			// The mapping remains valid once the channel has been closed
+			access.close();
+		}
+		writer = new NIOPacketWriter(segment);
+
+		if (full != null) {
+			committer.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					full.force();
+				}
+
+			});
+		}
+	}
+
+	/**
+	 * Replays every journaled event of a directory, in the order it was
+	 * appended, through an event manager.
+	 * 
+	 * <p>
+	 * A segment is replayed up to its first incomplete or corrupt record.
+	 * </p>
+	 * 
+	 * @param directory
+	 *            The directory which contains the segment files.
+	 * @param codecs
+	 *            The codecs which decode journaled events.
+	 * @param manager
+	 *            The event manager to dispatch replayed events through.
+	 * @return The number of replayed events.
+	 * @throws IOException
+	 *             If a segment file cannot be read.
+	 */
+	public static long replay(File directory, EventCodecRegistry codecs,
+			EventManager manager) throws IOException {
+		checkNotNull(codecs);
+		checkNotNull(manager);
+
+		long replayed = 0;
+		CRC32 checksum = new CRC32();
+		for (File file : segments(checkNotNull(directory))) {
+			MappedByteBuffer segment;
+			RandomAccessFile access = new RandomAccessFile(file, "r");
+			try {
+				segment = access.getChannel().map(MapMode.READ_ONLY, 0,
+						access.length());
+			} finally {
+				access.close();
+			}
+
+			while (segment.remaining() > HEADER_SIZE) {
+				int length = segment.getInt();
+				int expected = segment.getInt();
+				if (length <= 0 || length > segment.remaining()) {
+					break;
+				}
+
+				ByteBuffer payload = segment.slice();
+				payload.limit(length);
+				checksum.reset();
+				checksum.update(payload.duplicate());
+				if ((int) checksum.getValue() != expected) {
+					break;
+				}
+
+				manager.dispatchEvent(codecs.decode(new NIOPacketReader(
+						payload)));
+				segment.position(segment.position() + length);
+				replayed++;
+			}
+		}
+		return replayed;
+	}
+
+	/**
+	 * Lists the segment files of a directory in the order they were written.
+	 * 
+	 * @param directory
+	 *            The directory which contains the segment files.
+	 * @return The segment files of the directory.
+	 */
+	private static File[] segments(File directory) {
+		File[] files = directory.listFiles(SEGMENT_FILTER);
+		if (files == null) {
+			return new File[0];
+		}
+		// Indices are zero-padded, so names sort in the order of indices
+		Arrays.sort(files);
+		return files;
+	}
+
+	/**
+	 * Returns the index of a segment file.
+	 * 
+	 * @param file
+	 *            The segment file.
+	 * @return The index of the segment, or <tt>0</tt> if its name is not an
+	 *         index.
+	 */
+	private static long indexOf(File file) {
+		String name = file.getName();
+		try {
+			return Long.parseLong(name.substring(0, name.length()
+					- SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package mint.event.journal;
+
+import static mint.Preconditions.checkNotNull;
+
+import java.util.Collection;
+import java.util.concurrent.Future;
+
+import mint.event.Event;
+import mint.event.EventCodecRegistry;
+import mint.event.EventManager;
+import mint.event.ForwardingEventManager;
+
+/**
+ * An event manager which appends every dispatched event of a journaled type
+ * to an {@link EventJournal} before passing it to its delegate.
+ * 
+ * <p>
+ * Journaling is opt-in per event type: only events whose class is registered
+ * with the codecs of the manager are journaled, and every other event is
+ * dispatched as though the manager were not there.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class JournalingEventManager extends ForwardingEventManager {
+
+	/**
+	 * The journal which dispatched events are appended to.
+	 */
+	private final EventJournal journal;
+
+	/**
+	 * The codecs of the journaled event types.
+	 */
+	private final EventCodecRegistry codecs;
+
+	/**
+	 * Constructs a new journaling event manager.
+	 * 
+	 * @param delegate
+	 *            The event manager which dispatches events once they have
+	 *            been journaled.
+	 * @param journal
+	 *            The journal which dispatched events are appended to.
+	 * @param codecs
+	 *            The codecs of the journaled event types, which should be
+	 *            those of the journal.
+	 */
+	public JournalingEventManager(EventManager delegate, EventJournal journal,
+			EventCodecRegistry codecs) {
+		super(checkNotNull(delegate));
+		this.journal = checkNotNull(journal);
+		this.codecs = checkNotNull(codecs);
+	}
+
+	@Override
+	public void dispatchEvent(Event event) {
+		journal(checkNotNull(event));
+		super.dispatchEvent(event);
+	}
+
+	@Override
+	public void dispatchAll(Collection<? extends Event> events) {
+		for (Event event : checkNotNull(events)) {
+			journal(checkNotNull(event));
+		}
+		super.dispatchAll(events);
+	}
+
+	@Override
+	public <E extends Event> Future<E> dispatchAsync(E event) {
+		journal(checkNotNull(event));
+		return super.dispatchAsync(event);
+	}
+
+	/**
+	 * Retrieves the journal which dispatched events are appended to.
+	 * 
+	 * @return The {@link #journal}.
+	 */
+	public EventJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Appends an event to the journal if its type is journaled.
+	 * 
+	 * @param event
+	 *            The dispatched event.
+	 */
+	private void journal(Event event) {
+		if (codecs.isRegistered(event)) {
+			journal.append(event);
+		}
+	}
+
+}
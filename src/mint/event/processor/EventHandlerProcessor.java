@@ -0,0 +1,272 @@
+package mint.event.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import mint.event.Event;
+import mint.event.EventHandler;
+import mint.event.EventHandlerTable;
+import mint.event.EventHandlerTables;
+import mint.event.EventListener;
+
+/**
+ * An annotation processor which generates an {@link EventHandlerTable} for
+ * every listener type which declares {@link EventHandler} methods.
+ * 
+ * <p>
+ * The generated table of a listener type covers the same methods that would
+ * otherwise be found by reflection: every <tt>public</tt> method of the type,
+ * declared or inherited, which is annotated with {@code @EventHandler} and has
+ * a single {@link Event} parameter. Each method is called directly by the
+ * generated code, so registering a listener with a generated table involves
+ * no reflection at all.
+ * </p>
+ * 
+ * <p>
+ * Tables are not generated for abstract classes, interfaces, or types which
+ * are not accessible from their own package. Subclasses of a listener type
+ * which declare no event handlers themselves have no table, and are reflected
+ * on as before.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class EventHandlerProcessor extends AbstractProcessor {
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(EventHandler.class.getName());
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		Set<TypeElement> listeners = new LinkedHashSet<TypeElement>();
+		for (Element element : roundEnv
+				.getElementsAnnotatedWith(EventHandler.class)) {
+			if (element.getKind() == ElementKind.METHOD) {
+				listeners.add((TypeElement) element.getEnclosingElement());
+			}
+		}
+
+		for (TypeElement listener : listeners) {
+			if (isEligible(listener)) {
+				List<ExecutableElement> handlers = getHandlers(listener);
+				if (handlers != null) {
+					generate(listener, handlers);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether a table can be generated for the given type.
+	 * 
+	 * @param type
+	 *            The type which declares event handler methods.
+	 * @return Whether or not a table can be generated for the type.
+	 */
+	private boolean isEligible(TypeElement type) {
+		if (type.getKind() != ElementKind.CLASS
+				|| type.getModifiers().contains(Modifier.ABSTRACT)
+				|| !isAssignable(type.asType(), EventListener.class)) {
+			return false;
+		}
+		for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e
+				.getEnclosingElement()) {
+			if (e.getModifiers().contains(Modifier.PRIVATE)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the event handler methods of the given listener type.
+	 * 
+	 * @param listener
+	 *            The listener type.
+	 * @return The event handler methods of the listener type, or
+	 *         <tt>null</tt> if one of them cannot be called from an
+	 *         {@link mint.event.EventInvoker}, as it throws a
+	 *         {@link Throwable} which is neither an {@link Exception} nor an
+	 *         {@link Error}.
+	 */
+	private List<ExecutableElement> getHandlers(TypeElement listener) {
+		List<ExecutableElement> handlers = new ArrayList<ExecutableElement>();
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv
+				.getElementUtils().getAllMembers(listener))) {
+			if (method.getAnnotation(EventHandler.class) != null
+					&& method.getModifiers().contains(Modifier.PUBLIC)
+					&& method.getParameters().size() == 1
+					&& isAssignable(method.getParameters().get(0).asType(),
+							Event.class)) {
+				for (TypeMirror thrown : method.getThrownTypes()) {
+					if (!isAssignable(thrown, Exception.class)
+							&& !isAssignable(thrown, Error.class)) {
+						return null;
+					}
+				}
+				handlers.add(method);
+			}
+		}
+		return handlers;
+	}
+
+	/**
+	 * Generates the table of the given listener type.
+	 * 
+	 * @param listener
+	 *            The listener type.
+	 * @param handlers
+	 *            The event handler methods of the listener type.
+	 */
+	private void generate(TypeElement listener,
+			List<ExecutableElement> handlers) {
+		PackageElement pkg = processingEnv.getElementUtils().getPackageOf(
+				listener);
+		String binaryName = processingEnv.getElementUtils()
+				.getBinaryName(listener).toString();
+		String simpleName = (pkg.isUnnamed() ? binaryName : binaryName
+				.substring(pkg.getQualifiedName().length() + 1))
+				+ EventHandlerTables.GENERATED_SUFFIX;
+		String qualifiedName = pkg.isUnnamed() ? simpleName : pkg
+				.getQualifiedName() + "." + simpleName;
+
+		try {
+			PrintWriter out = new PrintWriter(processingEnv.getFiler()
+					.createSourceFile(qualifiedName, listener).openWriter());
+			try {
+				write(out, pkg, simpleName, listener, handlers);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Failed to generate " + qualifiedName + ": " + e, listener);
+		}
+	}
+
+	/**
+	 * Writes the source of a generated table.
+	 * 
+	 * @param out
+	 *            The writer of the source file.
+	 * @param pkg
+	 *            The package of the listener type.
+	 * @param simpleName
+	 *            The simple name of the generated table.
+	 * @param listener
+	 *            The listener type.
+	 * @param handlers
+	 *            The event handler methods of the listener type.
+	 */
+	private void write(PrintWriter out, PackageElement pkg, String simpleName,
+			TypeElement listener, List<ExecutableElement> handlers) {
+		String listenerType = erasure(listener.asType());
+
+		if (!pkg.isUnnamed()) {
+			out.println("package " + pkg.getQualifiedName() + ";");
+			out.println();
+		}
+		out.println("// Generated by " + EventHandlerProcessor.class.getName());
+		out.println("public final class " + simpleName
+				+ " implements mint.event.EventHandlerTable {");
+		out.println();
+		out.println("\tprivate static final java.util.List<mint.event.EventHandlerDefinition> DEFINITIONS = java.util.Collections");
+		out.println("\t\t\t.unmodifiableList(java.util.Arrays.asList(");
+		for (int i = 0; i < handlers.size(); i++) {
+			ExecutableElement method = handlers.get(i);
+			EventHandler eventHandler = method
+					.getAnnotation(EventHandler.class);
+			String eventType = erasure(method.getParameters().get(0).asType());
+			String declaringType = processingEnv.getElementUtils()
+					.getBinaryName((TypeElement) method.getEnclosingElement())
+					.toString();
+			String receiver = method.getModifiers().contains(Modifier.STATIC) ? erasure(method
+					.getEnclosingElement().asType())
+					: "((" + listenerType + ") listener)";
+
+			out.println("\t\t\t\tnew mint.event.EventHandlerDefinition(");
+			out.println("\t\t\t\t\t\t" + eventType + ".class,");
+			out.println("\t\t\t\t\t\t\"" + declaringType + "."
+					+ method.getSimpleName() + "\",");
+			out.println("\t\t\t\t\t\tnew mint.event.EventInvoker() {");
+			out.println("\t\t\t\t\t\t\t@Override");
+			out.println("\t\t\t\t\t\t\tpublic void invoke(mint.event.EventListener listener,");
+			out.println("\t\t\t\t\t\t\t\t\tmint.event.Event event) throws Exception {");
+			out.println("\t\t\t\t\t\t\t\t" + receiver + "."
+					+ method.getSimpleName() + "((" + eventType
+					+ ") event);");
+			out.println("\t\t\t\t\t\t\t}");
+			out.println("\t\t\t\t\t\t},");
+			out.println("\t\t\t\t\t\tmint.event.EventPriority."
+					+ eventHandler.priority().name() + ",");
+			out.println("\t\t\t\t\t\t" + eventHandler.ignoreCancelled() + ",");
+			out.println("\t\t\t\t\t\tmint.event.EventExecution."
+					+ eventHandler.execution().name() + ")"
+					+ (i < handlers.size() - 1 ? "," : ""));
+		}
+		out.println("\t\t\t\t));");
+		out.println();
+		out.println("\t@Override");
+		out.println("\tpublic java.util.List<mint.event.EventHandlerDefinition> getDefinitions() {");
+		out.println("\t\treturn DEFINITIONS;");
+		out.println("\t}");
+		out.println();
+		out.println("}");
+	}
+
+	/**
+	 * Determines whether the given type is assignable to a class.
+	 * 
+	 * @param type
+	 *            The type to check.
+	 * @param target
+	 *            The class to check the type against.
+	 * @return Whether or not the type is assignable to the class.
+	 */
+	private boolean isAssignable(TypeMirror type, Class<?> target) {
+		TypeElement targetElement = processingEnv.getElementUtils()
+				.getTypeElement(target.getCanonicalName());
+		return targetElement != null
+				&& processingEnv.getTypeUtils().isAssignable(type,
+						targetElement.asType());
+	}
+
+	/**
+	 * Returns the source representation of the erasure of the given type.
+	 * 
+	 * @param type
+	 *            The type to erase.
+	 * @return The source representation of the erased type.
+	 */
+	private String erasure(TypeMirror type) {
+		return processingEnv.getTypeUtils().erasure(type).toString();
+	}
+
+}
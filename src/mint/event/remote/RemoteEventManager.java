@@ -0,0 +1,650 @@
+package mint.event.remote;
+
+import static mint.Preconditions.checkNotNull;
+import static mint.Preconditions.checkState;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import mint.Nullable;
+import mint.event.Event;
+import mint.event.EventCodecRegistry;
+import mint.event.EventManager;
+import mint.event.ForwardingEventManager;
+import mint.network.packet.NIOPacketReader;
+import mint.network.packet.NIOPacketWriter;
+import mint.service.Service;
+
+/**
+ * An event manager which forwards the events of selected types to the event
+ * managers of peer processes, over non-blocking socket connections.
+ * 
+ * <p>
+ * An event is forwarded if its class is registered with the codecs of the
+ * manager, which must agree with those of every peer. Forwarded events are
+ * still dispatched locally. Events received from a peer are dispatched by the
+ * delegate, so they reach the listeners of this process without being
+ * forwarded again.
+ * </p>
+ * 
+ * <p>
+ * A single I/O thread accepts, reads and writes every connection. Forwarded
+ * events are encoded by the dispatching thread before they are dispatched
+ * locally, so that local handlers cannot change what is sent, and queued for
+ * the I/O thread, which writes as many queued events as it can with each
+ * socket write. Each read's worth of received events is handed to a single
+ * dispatching thread as a batch, so received events are dispatched in the
+ * order they arrived without slow handlers holding up the I/O thread. Each
+ * event is framed by its length, and may be at most 64 KiB once encoded.
+ * </p>
+ * 
+ * @author Thomas G. P. Nappo
+ */
+public final class RemoteEventManager extends ForwardingEventManager implements
+		Service {
+
+	/**
+	 * The initial size of each connection buffer, and the maximum size of an
+	 * encoded event.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The maximum number of bytes which may be waiting to be written to a
+	 * peer before it is disconnected for being too slow.
+	 */
+	private static final int MAXIMUM_BACKLOG = 64 << 20;
+
+	/**
+	 * The initial size of each staging buffer.
+	 */
+	private static final int INITIAL_STAGE_SIZE = 256;
+
+	/**
+	 * The staging buffer of each dispatching thread, which forwarded events
+	 * are encoded into before being queued.
+	 */
+	private static final ThreadLocal<Stage> stages = new ThreadLocal<Stage>() {
+
+		@Override
+		protected Stage initialValue() {
+			return new Stage();
+		}
+
+	};
+
+	/**
+	 * The codecs of the forwarded event types.
+	 */
+	private final EventCodecRegistry codecs;
+
+	/**
+	 * The address to accept peer connections on, or <tt>null</tt> if peers
+	 * are only connected to.
+	 */
+	private final SocketAddress address;
+
+	/**
+	 * The framed events which are waiting to be forwarded.
+	 */
+	private final Queue<byte[]> outbound = new ConcurrentLinkedQueue<byte[]>();
+
+	/**
+	 * Whether the I/O thread has been woken up to forward queued events.
+	 */
+	private final AtomicBoolean woken = new AtomicBoolean();
+
+	/**
+	 * The connections which are waiting to be registered by the I/O thread.
+	 */
+	private final Queue<SocketChannel> connecting = new ConcurrentLinkedQueue<SocketChannel>();
+
+	/**
+	 * The connected peers, which are only accessed by the I/O thread.
+	 */
+	private final List<Peer> peers = new ArrayList<Peer>();
+
+	/**
+	 * The selector of the I/O thread.
+	 */
+	private Selector selector;
+
+	/**
+	 * The channel which accepts peer connections, or <tt>null</tt> if peers
+	 * are only connected to.
+	 */
+	private ServerSocketChannel server;
+
+	/**
+	 * The I/O thread.
+	 */
+	private Thread thread;
+
+	/**
+	 * The executor which dispatches received events.
+	 */
+	private ExecutorService dispatcher;
+
+	/**
+	 * Whether or not the manager is running.
+	 */
+	private volatile boolean running;
+
+	/**
+	 * Constructs a new remote event manager.
+	 * 
+	 * @param delegate
+	 *            The event manager which dispatches events locally.
+	 * @param codecs
+	 *            The codecs of the forwarded event types.
+	 * @param address
+	 *            The address to accept peer connections on, or <tt>null</tt>
+	 *            if peers are only connected to.
+	 */
+	public RemoteEventManager(EventManager delegate, EventCodecRegistry codecs,
+			@Nullable SocketAddress address) {
+		super(checkNotNull(delegate));
+		this.codecs = checkNotNull(codecs);
+		this.address = address;
+	}
+
+	@Override
+	public void dispatchEvent(Event event) {
+		forward(checkNotNull(event));
+		super.dispatchEvent(event);
+	}
+
+	@Override
+	public void dispatchAll(Collection<? extends Event> events) {
+		for (Event event : checkNotNull(events)) {
+			forward(checkNotNull(event));
+		}
+		super.dispatchAll(events);
+	}
+
+	@Override
+	public <E extends Event> Future<E> dispatchAsync(E event) {
+		forward(checkNotNull(event));
+		return super.dispatchAsync(event);
+	}
+
+	/**
+	 * Connects to a peer, which forwarded events are then sent to and
+	 * received from.
+	 * 
+	 * @param peer
+	 *            The address which the peer accepts connections on.
+	 * @throws IOException
+	 *             If the connection cannot be established.
+	 * @throws IllegalStateException
+	 *             If the manager is not running.
+	 */
+	public void connect(SocketAddress peer) throws IOException {
+		checkState(running, "The manager is not running");
+
+		SocketChannel channel = SocketChannel.open(checkNotNull(peer));
+		connecting.add(channel);
+		selector.wakeup();
+	}
+
+	@Override
+	public synchronized void start() {
+		checkState(!running, "The service is already running!");
+
+		try {
+			selector = Selector.open();
+			if (address != null) {
+				server = ServerSocketChannel.open();
+				server.configureBlocking(false);
+				server.socket().bind(address);
+				server.register(selector, SelectionKey.OP_ACCEPT);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open the manager", e);
+		}
+
+		dispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable,
+						"mint-event-remote-dispatch");
+				thread.setDaemon(true);
+				return thread;
+			}
+
+		});
+		running = true;
+		thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				loop();
+			}
+
+		}, "mint-event-remote");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public synchronized void stop() {
+		checkState(running, "The service has already been stopped!");
+
+		running = false;
+		selector.wakeup();
+		try {
+			thread.join();
+			// Dispatch the events which were received before stopping
+			dispatcher.shutdown();
+			dispatcher.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Encodes and queues an event to be forwarded if its type is forwarded,
+	 * waking the I/O thread if it is not already awake.
+	 * 
+	 * @param event
+	 *            The dispatched event.
+	 */
+	private void forward(Event event) {
+		if (!running || !codecs.isRegistered(event)) {
+			return;
+		}
+		byte[] frame;
+		try {
+			frame = encode(event);
+		} catch (RuntimeException e) {
+			// Still dispatched locally
+			e.printStackTrace();
+			return;
+		}
+		outbound.add(frame);
+		if (woken.compareAndSet(false, true)) {
+			selector.wakeup();
+		}
+	}
+
+	/**
+	 * Encodes an event into the staging buffer of the current thread, growing
+	 * it as needed, and frames it by its length.
+	 * 
+	 * @param event
+	 *            The event to encode.
+	 * @return The framed event.
+	 * @throws IllegalArgumentException
+	 *             If the encoded event is larger than 64 KiB.
+	 */
+	private byte[] encode(Event event) {
+		Stage stage = stages.get();
+		for (;;) {
+			stage.buffer.clear();
+			stage.buffer.position(4);
+			try {
+				codecs.encode(event, stage.writer);
+				break;
+			} catch (BufferOverflowException e) {
+				if (stage.buffer.capacity() >= BUFFER_SIZE) {
+					stage.reset();
+					throw new IllegalArgumentException(event
+							+ " is too large to forward", e);
+				}
+				stage.grow();
+			} catch (RuntimeException e) {
+				stage.reset();
+				throw e;
+			}
+		}
+
+		ByteBuffer buffer = stage.buffer;
+		buffer.putInt(0, buffer.position() - 4);
+		buffer.flip();
+		byte[] frame = new byte[buffer.remaining()];
+		buffer.get(frame);
+		return frame;
+	}
+
+	/**
+	 * Runs the I/O thread until the manager is stopped.
+	 */
+	private void loop() {
+		while (running) {
+			try {
+				selector.select();
+				woken.set(false);
+
+				for (SocketChannel channel; (channel = connecting.poll()) != null;) {
+					register(channel);
+				}
+
+				Iterator<SelectionKey> keys = selector.selectedKeys()
+						.iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						SocketChannel channel = server.accept();
+						if (channel != null) {
+							register(channel);
+						}
+						continue;
+					}
+
+					Peer peer = (Peer) key.attachment();
+					if (key.isReadable()) {
+						read(peer);
+					}
+					if (key.isValid() && key.isWritable()) {
+						write(peer);
+					}
+				}
+
+				flush();
+			} catch (IOException e) {
+				// Nowhere to propagate
+				e.printStackTrace();
+			} catch (RuntimeException e) {
+				// Keep serving the other peers
+				e.printStackTrace();
+			}
+		}
+
+		for (Peer peer : peers) {
+			close(peer);
+		}
+		peers.clear();
+		try {
+			if (server != null) {
+				server.close();
+			}
+			selector.close();
+		} catch (IOException e) {
+			// Nowhere to propagate
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Registers a connected channel as a peer.
+	 * 
+	 * @param channel
+	 *            The connected channel.
+	 * @throws IOException
+	 *             If the channel cannot be registered.
+	 */
+	private void register(SocketChannel channel) throws IOException {
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Peer peer = new Peer(channel);
+		peer.key = channel.register(selector, SelectionKey.OP_READ, peer);
+		peers.add(peer);
+	}
+
+	/**
+	 * Reads from a peer, handing every event which has been completely
+	 * received to the {@link #dispatcher}.
+	 * 
+	 * @param peer
+	 *            The peer to read from.
+	 */
+	private void read(Peer peer) {
+		ByteBuffer in = peer.in;
+		try {
+			if (peer.channel.read(in) < 0) {
+				close(peer);
+				return;
+			}
+		} catch (IOException e) {
+			close(peer);
+			return;
+		}
+
+		final List<Event> received = new ArrayList<Event>();
+		in.flip();
+		int required = 0;
+		while (in.remaining() >= 4) {
+			int length = in.getInt(in.position());
+			if (length <= 0 || length > BUFFER_SIZE) {
+				close(peer);
+				return;
+			}
+			if (in.remaining() < 4 + length) {
+				required = 4 + length;
+				break;
+			}
+
+			ByteBuffer frame = in.slice();
+			frame.position(4).limit(4 + length);
+			try {
+				received.add(codecs.decode(new NIOPacketReader(frame)));
+			} catch (RuntimeException e) {
+				// Nowhere to propagate
+				e.printStackTrace();
+			}
+			in.position(in.position() + 4 + length);
+		}
+		in.compact();
+		if (required > in.capacity()) {
+			peer.in = grow(in, required);
+		}
+
+		if (!received.isEmpty()) {
+			dispatcher.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						delegate().dispatchAll(received);
+					} catch (RuntimeException e) {
+						// Nowhere to propagate
+						e.printStackTrace();
+					}
+				}
+
+			});
+		}
+	}
+
+	/**
+	 * Copies every queued event into the outbound buffer of each peer, then
+	 * writes to every peer.
+	 */
+	private void flush() {
+		for (byte[] frame; (frame = outbound.poll()) != null;) {
+			for (int i = 0; i < peers.size(); i++) {
+				Peer peer = peers.get(i);
+				if (!peer.channel.isOpen()) {
+					continue;
+				}
+				if (peer.out.remaining() < frame.length) {
+					int required = peer.out.position() + frame.length;
+					if (required > MAXIMUM_BACKLOG) {
+						close(peer);
+						continue;
+					}
+					peer.out = grow(peer.out, required);
+				}
+				peer.out.put(frame);
+			}
+		}
+
+		for (int i = 0; i < peers.size(); i++) {
+			Peer peer = peers.get(i);
+			if (peer.out.position() > 0) {
+				write(peer);
+			}
+		}
+
+		// Forget peers which were closed along the way
+		for (Iterator<Peer> iterator = peers.iterator(); iterator.hasNext();) {
+			if (!iterator.next().channel.isOpen()) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Writes as much of the outbound buffer of a peer as the socket accepts,
+	 * waiting for the socket to become writable if some is left.
+	 * 
+	 * @param peer
+	 *            The peer to write to.
+	 */
+	private void write(Peer peer) {
+		ByteBuffer out = peer.out;
+		out.flip();
+		try {
+			peer.channel.write(out);
+		} catch (IOException e) {
+			close(peer);
+			return;
+		} finally {
+			out.compact();
+		}
+		try {
+			peer.key.interestOps(out.position() > 0 ? SelectionKey.OP_READ
+					| SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+		} catch (RuntimeException e) {
+			close(peer);
+		}
+	}
+
+	/**
+	 * Closes the connection of a peer.
+	 * 
+	 * @param peer
+	 *            The peer to close.
+	 */
+	private static void close(Peer peer) {
+		try {
+			peer.channel.close();
+		} catch (IOException e) {
+			// Closing anyway
+		}
+	}
+
+	/**
+	 * Copies a buffer, in write mode, into a larger buffer.
+	 * 
+	 * @param buffer
+	 *            The buffer to grow.
+	 * @param required
+	 *            The capacity which is required.
+	 * @return The grown buffer, in write mode.
+	 */
+	private static ByteBuffer grow(ByteBuffer buffer, int required) {
+		int capacity = buffer.capacity();
+		while (capacity < required) {
+			capacity <<= 1;
+		}
+		ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+		buffer.flip();
+		grown.put(buffer);
+		return grown;
+	}
+
+	/**
+	 * The staging buffer of a dispatching thread.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class Stage {
+
+		/**
+		 * The buffer which events are encoded into.
+		 */
+		private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_STAGE_SIZE);
+
+		/**
+		 * The writer which encodes events into the {@link #buffer}.
+		 */
+		private NIOPacketWriter writer = new NIOPacketWriter(buffer);
+
+		/**
+		 * Doubles the size of the buffer, up to 64 KiB.
+		 */
+		private void grow() {
+			buffer = ByteBuffer.allocate(Math.min(buffer.capacity() << 1,
+					BUFFER_SIZE));
+			writer = new NIOPacketWriter(buffer);
+		}
+
+		/**
+		 * Replaces the writer after a failed encoding, which may have left it
+		 * in bit access mode.
+		 */
+		private void reset() {
+			writer = new NIOPacketWriter(buffer);
+		}
+
+	}
+
+	/**
+	 * A connection to a peer process.
+	 * 
+	 * @author Thomas G. P. Nappo
+	 */
+	private static final class Peer {
+
+		/**
+		 * The channel of the connection.
+		 */
+		private final SocketChannel channel;
+
+		/**
+		 * The selection key of the channel.
+		 */
+		private SelectionKey key;
+
+		/**
+		 * The bytes received but not yet decoded, in write mode.
+		 */
+		private ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		/**
+		 * The bytes encoded but not yet written, in write mode.
+		 */
+		private ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		/**
+		 * Constructs a new peer.
+		 * 
+		 * @param channel
+		 *            The channel of the connection.
+		 */
+		private Peer(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+	}
+
+}
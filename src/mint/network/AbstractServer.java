@@ -10,6 +10,8 @@ import mint.service.AbstractService;
 
 public abstract class AbstractServer extends AbstractService implements Server {
 
+	static final int MAXIMUM_FRAME_LENGTH = 1 << 20;
+
 	private final int port;
 
 	private final PacketService packetService;
@@ -0,0 +1,196 @@
+package mint.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import mint.network.packet.NIOPacketReader;
+import mint.network.packet.Packet;
+import mint.network.packet.PacketRepresentation;
+import mint.network.packet.PacketWriter;
+
+public final class NIOClient implements Client {
+
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+	private static final int INITIAL_GATHER = 64;
+
+	private final NIOServer server;
+	private final NIOEventLoop eventLoop;
+	private final SocketChannel channel;
+
+	private final Queue<OutboundFrame> outbound = new ConcurrentLinkedQueue<OutboundFrame>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private final AtomicBoolean disconnected = new AtomicBoolean();
+
+	private ByteBuffer[] gather = new ByteBuffer[INITIAL_GATHER];
+	private OutboundFrame[] gathered = new OutboundFrame[INITIAL_GATHER];
+	private int gatherOffset;
+	private int gatherLength;
+
+	private ByteBuffer in = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+	private SelectionKey key;
+
+	NIOClient(NIOServer server, NIOEventLoop eventLoop, SocketChannel channel) {
+		this.server = server;
+		this.eventLoop = eventLoop;
+		this.channel = channel;
+	}
+
+	@Override
+	public Server getServer() {
+		return server;
+	}
+
+	public SocketChannel getChannel() {
+		return channel;
+	}
+
+	@Override
+	public void write(Packet packet) {
+		PacketWriter writer = server.getPacketEncoder().encode(packet);
+		outbound.add(new OutboundFrame(writer));
+
+		if (flushScheduled.compareAndSet(false, true))
+			eventLoop.flush(this);
+	}
+
+	@Override
+	public void write(PacketRepresentation packetRep) {
+		Packet packet = server.getPacketService().build(packetRep);
+		if (packet == null)
+			throw new IllegalArgumentException("No packet builder for "
+					+ packetRep.getClass().getName());
+		write(packet);
+	}
+
+	@Override
+	public void disconnect() {
+		if (!disconnected.compareAndSet(false, true))
+			return;
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// Closing anyway
+		}
+		for (OutboundFrame frame; (frame = outbound.poll()) != null;)
+			frame.release();
+		server.disconnected(this);
+	}
+
+	void register(Selector selector) throws ClosedChannelException {
+		key = channel.register(selector, SelectionKey.OP_READ, this);
+		// Frames written before the channel was registered were left queued
+		if (!outbound.isEmpty())
+			flush();
+	}
+
+	void read() {
+		try {
+			if (channel.read(in) < 0) {
+				disconnect();
+				return;
+			}
+		} catch (IOException e) {
+			disconnect();
+			return;
+		}
+
+		in.flip();
+		int required = 0;
+		while (in.remaining() >= 4) {
+			int length = in.getInt(in.position());
+			if (length < 0 || length > AbstractServer.MAXIMUM_FRAME_LENGTH) {
+				disconnect();
+				return;
+			}
+			if (in.remaining() < 4 + length) {
+				required = 4 + length;
+				break;
+			}
+
+			ByteBuffer frame = in.slice();
+			frame.position(4).limit(4 + length);
+			in.position(in.position() + 4 + length);
+			try {
+				server.received(this, server.getPacketDecoder().decode(
+						new NIOPacketReader(frame)));
+			} catch (RuntimeException e) {
+				// Nowhere to propagate
+				e.printStackTrace();
+			}
+			if (disconnected.get())
+				return;
+		}
+		in.compact();
+
+		if (required > in.capacity()) {
+			int capacity = in.capacity();
+			while (capacity < required)
+				capacity <<= 1;
+			ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+			in.flip();
+			grown.put(in);
+			in = grown;
+		}
+	}
+
+	void flush() {
+		flushScheduled.set(false);
+		if (disconnected.get() || key == null)
+			return;
+
+		try {
+			while (true) {
+				if (gatherLength == 0 && !gatherOutbound())
+					break;
+
+				channel.write(gather, gatherOffset, gatherLength);
+				while (gatherLength > 0 && !gather[gatherOffset].hasRemaining()) {
+					if (gathered[gatherOffset] != null) {
+						gathered[gatherOffset].release();
+						gathered[gatherOffset] = null;
+					}
+					gather[gatherOffset++] = null;
+					gatherLength--;
+				}
+				if (gatherLength > 0) {
+					key.interestOps(SelectionKey.OP_READ
+							| SelectionKey.OP_WRITE);
+					return;
+				}
+			}
+			key.interestOps(SelectionKey.OP_READ);
+		} catch (IOException e) {
+			disconnect();
+		} catch (RuntimeException e) {
+			disconnect();
+		}
+	}
+
+	private boolean gatherOutbound() {
+		gatherOffset = 0;
+		for (OutboundFrame frame; (frame = outbound.peek()) != null;) {
+			ByteBuffer[] buffers = frame.getBuffers();
+			if (gatherLength + buffers.length > gather.length) {
+				if (gatherLength > 0)
+					break;
+				gather = new ByteBuffer[buffers.length];
+				gathered = new OutboundFrame[buffers.length];
+			}
+			outbound.poll();
+
+			System.arraycopy(buffers, 0, gather, gatherLength, buffers.length);
+			gatherLength += buffers.length;
+			// Released once its last buffer has been written
+			gathered[gatherLength - 1] = frame;
+		}
+		return gatherLength > 0;
+	}
+
+}
\ No newline at end of file
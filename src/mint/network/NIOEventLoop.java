@@ -0,0 +1,117 @@
+package mint.network;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class NIOEventLoop implements Runnable {
+
+	private final NIOServer server;
+	private final Selector selector;
+
+	private final Queue<NIOClient> registering = new ConcurrentLinkedQueue<NIOClient>();
+	private final Queue<NIOClient> flushing = new ConcurrentLinkedQueue<NIOClient>();
+	private final AtomicBoolean woken = new AtomicBoolean();
+
+	private Thread thread;
+	private volatile boolean running;
+
+	NIOEventLoop(NIOServer server) throws IOException {
+		this.server = server;
+		this.selector = Selector.open();
+	}
+
+	void start(String name) {
+		running = true;
+		thread = new Thread(this, name);
+		thread.start();
+	}
+
+	void stop() throws InterruptedException {
+		running = false;
+		selector.wakeup();
+		thread.join();
+	}
+
+	void register(NIOClient client) {
+		registering.add(client);
+		wakeup();
+	}
+
+	void flush(NIOClient client) {
+		flushing.add(client);
+		wakeup();
+	}
+
+	private void wakeup() {
+		if (woken.compareAndSet(false, true))
+			selector.wakeup();
+	}
+
+	private static void failed(NIOClient client, RuntimeException e) {
+		// Only the client is dropped, so the loop keeps serving the others
+		e.printStackTrace();
+		client.disconnect();
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				selector.select();
+				woken.set(false);
+
+				for (NIOClient client; (client = registering.poll()) != null;) {
+					try {
+						client.register(selector);
+					} catch (ClosedChannelException e) {
+						client.disconnect();
+					}
+				}
+
+				Iterator<SelectionKey> keys = selector.selectedKeys()
+						.iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+
+					NIOClient client = (NIOClient) key.attachment();
+					try {
+						if (key.isValid() && key.isReadable())
+							client.read();
+						if (key.isValid() && key.isWritable())
+							client.flush();
+					} catch (RuntimeException e) {
+						failed(client, e);
+					}
+				}
+
+				for (NIOClient client; (client = flushing.poll()) != null;) {
+					try {
+						client.flush();
+					} catch (RuntimeException e) {
+						failed(client, e);
+					}
+				}
+			} catch (IOException e) {
+				// Nowhere to propagate
+				e.printStackTrace();
+			}
+		}
+
+		for (SelectionKey key : selector.keys())
+			((NIOClient) key.attachment()).disconnect();
+		try {
+			selector.close();
+		} catch (IOException e) {
+			// Nowhere to propagate
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+package mint.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mint.network.packet.BufferPacket;
+import mint.network.packet.Packet;
+import mint.network.packet.PacketDecoder;
+import mint.network.packet.PacketEncoder;
+import mint.network.packet.PacketRepresentation;
+import mint.network.packet.PacketService;
+
+public final class NIOServer extends AbstractServer {
+
+	private final PacketService packetService;
+	private final PacketHandler packetHandler;
+	private final Set<Client> clients;
+
+	private final NIOEventLoop[] eventLoops;
+
+	private ServerSocketChannel serverChannel;
+	private Thread acceptor;
+	private volatile boolean accepting;
+
+	private NIOServer(int port, PacketService packetService,
+			PacketEncoder packetEncoder, PacketDecoder packetDecoder,
+			PacketHandler packetHandler, int eventLoops, Set<Client> clients) {
+		super(port, packetService, packetEncoder, packetDecoder, clients);
+		if (eventLoops < 1)
+			throw new IllegalArgumentException(
+					"There must be at least one event loop");
+		this.packetService = packetService;
+		this.packetHandler = packetHandler;
+		this.clients = clients;
+		this.eventLoops = new NIOEventLoop[eventLoops];
+	}
+
+	public NIOServer(int port, PacketService packetService,
+			PacketEncoder packetEncoder, PacketDecoder packetDecoder,
+			PacketHandler packetHandler, int eventLoops) {
+		this(port, packetService, packetEncoder, packetDecoder, packetHandler,
+				eventLoops, Collections
+						.newSetFromMap(new ConcurrentHashMap<Client, Boolean>()));
+	}
+
+	public NIOServer(int port, PacketService packetService,
+			PacketEncoder packetEncoder, PacketDecoder packetDecoder,
+			PacketHandler packetHandler) {
+		this(port, packetService, packetEncoder, packetDecoder, packetHandler,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	protected void onStart() {
+		try {
+			serverChannel = ServerSocketChannel.open();
+			serverChannel.socket().bind(new InetSocketAddress(getPort()));
+			for (int i = 0; i < eventLoops.length; i++) {
+				eventLoops[i] = new NIOEventLoop(this);
+				eventLoops[i].start("mint-network-loop-" + getPort() + "-" + i);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to start the server", e);
+		}
+
+		accepting = true;
+		acceptor = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				accept();
+			}
+
+		}, "mint-network-acceptor-" + getPort());
+		acceptor.start();
+	}
+
+	@Override
+	protected void onStop() {
+		accepting = false;
+		try {
+			serverChannel.close();
+			acceptor.join();
+			for (NIOEventLoop eventLoop : eventLoops)
+				eventLoop.stop();
+		} catch (IOException e) {
+			// Nowhere to propagate
+			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void accept() {
+		int next = 0;
+		while (accepting) {
+			try {
+				SocketChannel channel = serverChannel.accept();
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+
+				NIOEventLoop eventLoop = eventLoops[next++ % eventLoops.length];
+				NIOClient client = new NIOClient(this, eventLoop, channel);
+				eventLoop.register(client);
+				clients.add(client);
+			} catch (AsynchronousCloseException e) {
+				return;
+			} catch (IOException e) {
+				// Nowhere to propagate
+				e.printStackTrace();
+			}
+		}
+	}
+
+	void received(NIOClient client, Packet packet) {
+		try {
+			PacketRepresentation packetRep = packetService.parse(packet);
+			if (packetRep != null)
+				packetHandler.handle(client, packetRep);
+		} finally {
+			// The inbound buffer is reused once the packet has been handled
+			if (packet instanceof BufferPacket)
+				((BufferPacket) packet).invalidate();
+		}
+	}
+
+	void disconnected(NIOClient client) {
+		clients.remove(client);
+	}
+
+}
@@ -0,0 +1,56 @@
+package mint.network;
+
+import java.nio.ByteBuffer;
+
+import mint.network.packet.CompositePacketWriter;
+import mint.network.packet.NIOPacketBuffer;
+import mint.network.packet.PacketWriter;
+
+final class OutboundFrame {
+
+	private final PacketWriter writer;
+	private final ByteBuffer[] buffers;
+
+	OutboundFrame(PacketWriter writer) {
+		this.writer = writer;
+
+		ByteBuffer header = ByteBuffer.allocate(4);
+		if (writer instanceof NIOPacketBuffer) {
+			ByteBuffer payload = ((NIOPacketBuffer) writer).getBacking()
+					.duplicate();
+			payload.flip();
+			header.putInt(0, payload.remaining());
+			buffers = new ByteBuffer[] { header, payload };
+		} else if (writer instanceof CompositePacketWriter) {
+			CompositePacketWriter composite = (CompositePacketWriter) writer;
+			// Each chunk is gathered as it is, rather than flattened
+			ByteBuffer[] chunks = composite.getBuffers();
+			header.putInt(0, composite.getLength());
+			buffers = new ByteBuffer[chunks.length + 1];
+			buffers[0] = header;
+			System.arraycopy(chunks, 0, buffers, 1, chunks.length);
+		} else
+			throw new IllegalArgumentException(
+					"Packet encoders must encode into NIO packet buffers or composite packet writers");
+	}
+
+	ByteBuffer[] getBuffers() {
+		return buffers;
+	}
+
+	boolean isWritten() {
+		// The payload may be empty, so the header is checked as well
+		for (ByteBuffer buffer : buffers)
+			if (buffer.hasRemaining())
+				return false;
+		return true;
+	}
+
+	void release() {
+		if (writer instanceof NIOPacketBuffer)
+			((NIOPacketBuffer) writer).release();
+		else
+			((CompositePacketWriter) writer).release();
+	}
+
+}
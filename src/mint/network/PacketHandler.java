@@ -0,0 +1,9 @@
+package mint.network;
+
+import mint.network.packet.PacketRepresentation;
+
+public interface PacketHandler {
+
+	void handle(Client client, PacketRepresentation packetRep);
+
+}
@@ -0,0 +1,120 @@
+package mint.network;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import mint.network.packet.NIOPacketReader;
+import mint.network.packet.Packet;
+import mint.network.packet.PacketRepresentation;
+import mint.network.packet.PacketWriter;
+
+public final class VirtualThreadClient implements Client {
+
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+
+	private final VirtualThreadServer server;
+	private final SocketChannel channel;
+
+	// A lock rather than synchronized, which would pin a virtual thread
+	private final Lock writeLock = new ReentrantLock();
+	private final AtomicBoolean disconnected = new AtomicBoolean();
+
+	VirtualThreadClient(VirtualThreadServer server, SocketChannel channel) {
+		this.server = server;
+		this.channel = channel;
+	}
+
+	@Override
+	public Server getServer() {
+		return server;
+	}
+
+	public SocketChannel getChannel() {
+		return channel;
+	}
+
+	@Override
+	public void write(Packet packet) {
+		PacketWriter writer = server.getPacketEncoder().encode(packet);
+		OutboundFrame frame = new OutboundFrame(writer);
+
+		writeLock.lock();
+		try {
+			while (!frame.isWritten())
+				channel.write(frame.getBuffers());
+		} catch (IOException e) {
+			disconnect();
+		} finally {
+			writeLock.unlock();
+			frame.release();
+		}
+	}
+
+	@Override
+	public void write(PacketRepresentation packetRep) {
+		Packet packet = server.getPacketService().build(packetRep);
+		if (packet == null)
+			throw new IllegalArgumentException("No packet builder for "
+					+ packetRep.getClass().getName());
+		write(packet);
+	}
+
+	@Override
+	public void disconnect() {
+		if (!disconnected.compareAndSet(false, true))
+			return;
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// Closing anyway
+		}
+		server.disconnected(this);
+	}
+
+	void run() {
+		ByteBuffer length = ByteBuffer.allocate(4);
+		ByteBuffer in = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+		try {
+			while (!disconnected.get()) {
+				length.clear();
+				readFully(length);
+				int frameLength = length.getInt(0);
+				if (frameLength < 0
+						|| frameLength > AbstractServer.MAXIMUM_FRAME_LENGTH)
+					break;
+
+				if (frameLength > in.capacity())
+					in = ByteBuffer.allocateDirect(Integer.highestOneBit(
+							frameLength - 1) << 1);
+				in.clear();
+				in.limit(frameLength);
+				readFully(in);
+				in.flip();
+
+				try {
+					server.received(this, server.getPacketDecoder().decode(
+							new NIOPacketReader(in)));
+				} catch (RuntimeException e) {
+					// Nowhere to propagate
+					e.printStackTrace();
+				}
+			}
+		} catch (IOException e) {
+			// The connection was closed or reset
+		} finally {
+			disconnect();
+		}
+	}
+
+	private void readFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			if (channel.read(buffer) < 0)
+				throw new EOFException();
+	}
+
+}
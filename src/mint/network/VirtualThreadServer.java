@@ -0,0 +1,154 @@
+package mint.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import mint.VirtualThreads;
+import mint.network.packet.BufferPacket;
+import mint.network.packet.Packet;
+import mint.network.packet.PacketDecoder;
+import mint.network.packet.PacketEncoder;
+import mint.network.packet.PacketRepresentation;
+import mint.network.packet.PacketService;
+
+public final class VirtualThreadServer extends AbstractServer {
+
+	private final PacketService packetService;
+	private final PacketHandler packetHandler;
+	private final Set<Client> clients;
+
+	private ServerSocketChannel serverChannel;
+	private ExecutorService connections;
+	private Thread acceptor;
+	private volatile boolean accepting;
+	private volatile boolean virtual;
+
+	private VirtualThreadServer(int port, PacketService packetService,
+			PacketEncoder packetEncoder, PacketDecoder packetDecoder,
+			PacketHandler packetHandler, Set<Client> clients) {
+		super(port, packetService, packetEncoder, packetDecoder, clients);
+		this.packetService = packetService;
+		this.packetHandler = packetHandler;
+		this.clients = clients;
+	}
+
+	public VirtualThreadServer(int port, PacketService packetService,
+			PacketEncoder packetEncoder, PacketDecoder packetDecoder,
+			PacketHandler packetHandler) {
+		this(port, packetService, packetEncoder, packetDecoder, packetHandler,
+				Collections
+						.newSetFromMap(new ConcurrentHashMap<Client, Boolean>()));
+	}
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	@Override
+	protected void onStart() {
+		try {
+			serverChannel = ServerSocketChannel.open();
+			serverChannel.socket().bind(new InetSocketAddress(getPort()));
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to start the server", e);
+		}
+
+		connections = VirtualThreads.newExecutor();
+		virtual = connections != null;
+		if (connections == null)
+			// Fall back to a platform thread per connection
+			connections = Executors.newCachedThreadPool(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable,
+							"mint-network-connection-" + getPort());
+					thread.setDaemon(true);
+					return thread;
+				}
+
+			});
+
+		accepting = true;
+		acceptor = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				accept();
+			}
+
+		}, "mint-network-acceptor-" + getPort());
+		acceptor.start();
+	}
+
+	@Override
+	protected void onStop() {
+		accepting = false;
+		try {
+			serverChannel.close();
+			acceptor.join();
+			for (Client client : clients)
+				client.disconnect();
+			connections.shutdown();
+			connections.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (IOException e) {
+			// Nowhere to propagate
+			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void accept() {
+		while (accepting) {
+			try {
+				SocketChannel channel = serverChannel.accept();
+				channel.socket().setTcpNoDelay(true);
+
+				final VirtualThreadClient client = new VirtualThreadClient(
+						this, channel);
+				clients.add(client);
+				connections.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						client.run();
+					}
+
+				});
+			} catch (AsynchronousCloseException e) {
+				return;
+			} catch (IOException e) {
+				// Nowhere to propagate
+				e.printStackTrace();
+			}
+		}
+	}
+
+	void received(VirtualThreadClient client, Packet packet) {
+		try {
+			PacketRepresentation packetRep = packetService.parse(packet);
+			if (packetRep != null)
+				packetHandler.handle(client, packetRep);
+		} finally {
+			// The inbound buffer is reused once the packet has been handled
+			if (packet instanceof BufferPacket)
+				((BufferPacket) packet).invalidate();
+		}
+	}
+
+	void disconnected(VirtualThreadClient client) {
+		clients.remove(client);
+	}
+
+}
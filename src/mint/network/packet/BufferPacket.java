@@ -0,0 +1,54 @@
+package mint.network.packet;
+
+import java.nio.ByteBuffer;
+
+public final class BufferPacket implements Packet {
+
+	private final int id;
+	private final ByteBuffer payload;
+	private volatile boolean valid = true;
+
+	public BufferPacket(int id, ByteBuffer payload) {
+		this.id = id;
+		this.payload = payload.slice();
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public byte[] getData() {
+		byte[] data = new byte[getLength()];
+		getPayload().get(data);
+		return data;
+	}
+
+	@Override
+	public int getLength() {
+		return payload.remaining();
+	}
+
+	public ByteBuffer getPayload() {
+		if (!valid)
+			throw new IllegalStateException(
+					"The packet's buffer has been reused");
+		return payload.duplicate();
+	}
+
+	public boolean isValid() {
+		return valid;
+	}
+
+	public void invalidate() {
+		valid = false;
+	}
+
+	public BufferPacket copy() {
+		ByteBuffer copy = ByteBuffer.allocate(getLength());
+		copy.put(getPayload()).flip();
+		return new BufferPacket(id, copy);
+	}
+
+}
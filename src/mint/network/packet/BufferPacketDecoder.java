@@ -0,0 +1,16 @@
+package mint.network.packet;
+
+public final class BufferPacketDecoder implements PacketDecoder {
+
+	@Override
+	public Packet decode(PacketReader reader) {
+		if (!(reader instanceof NIOPacketReader))
+			throw new IllegalArgumentException(
+					"Buffer packets can only be decoded from NIO packet readers");
+		NIOPacketReader nioReader = (NIOPacketReader) reader;
+		int id = nioReader.readInt();
+		return new BufferPacket(id, nioReader.readSlice(nioReader
+				.getBacking().remaining()));
+	}
+
+}
@@ -0,0 +1,16 @@
+package mint.network.packet;
+
+public final class BufferPacketEncoder implements PacketEncoder {
+
+	@Override
+	public PacketWriter encode(Packet packet) {
+		NIOPacketWriter writer = new NIOPacketWriter(4 + packet.getLength());
+		writer.writeInt(packet.getId());
+		if (packet instanceof BufferPacket)
+			writer.getBacking().put(((BufferPacket) packet).getPayload());
+		else
+			writer.getBacking().put(packet.getData());
+		return writer;
+	}
+
+}
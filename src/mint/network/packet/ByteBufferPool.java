@@ -0,0 +1,106 @@
+package mint.network.packet;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import mint.VirtualThreads;
+
+public final class ByteBufferPool {
+
+	private static final ByteBufferPool SHARED = new ByteBufferPool(64,
+			64 * 1024, 1024, 32);
+
+	public static ByteBufferPool shared() {
+		return SHARED;
+	}
+
+	private final int minimumShift;
+	private final int maximumSize;
+	private final int cacheCapacity;
+
+	private final ArrayBlockingQueue<ByteBuffer>[] shared;
+	private final ThreadLocal<ArrayDeque<ByteBuffer>[]> caches = new ThreadLocal<ArrayDeque<ByteBuffer>[]>() {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected ArrayDeque<ByteBuffer>[] initialValue() {
+			ArrayDeque<ByteBuffer>[] cache = (ArrayDeque<ByteBuffer>[]) new ArrayDeque<?>[shared.length];
+			for (int i = 0; i < cache.length; i++)
+				cache[i] = new ArrayDeque<ByteBuffer>(cacheCapacity);
+			return cache;
+		}
+
+	};
+
+	@SuppressWarnings("unchecked")
+	public ByteBufferPool(int minimumSize, int maximumSize,
+			int sharedCapacity, int cacheCapacity) {
+		if (Integer.bitCount(minimumSize) != 1
+				|| Integer.bitCount(maximumSize) != 1
+				|| minimumSize > maximumSize)
+			throw new IllegalArgumentException(
+					"Sizes must be powers of two, minimum first");
+		this.minimumShift = Integer.numberOfTrailingZeros(minimumSize);
+		this.maximumSize = maximumSize;
+		this.cacheCapacity = cacheCapacity;
+
+		int sizeClasses = Integer.numberOfTrailingZeros(maximumSize)
+				- minimumShift + 1;
+		this.shared = (ArrayBlockingQueue<ByteBuffer>[]) new ArrayBlockingQueue<?>[sizeClasses];
+		for (int i = 0; i < sizeClasses; i++)
+			shared[i] = new ArrayBlockingQueue<ByteBuffer>(sharedCapacity);
+	}
+
+	public ByteBuffer acquire(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Negative capacity: "
+					+ capacity);
+		if (capacity > maximumSize)
+			return ByteBuffer.allocateDirect(capacity);
+
+		int sizeClass = sizeClassOf(capacity);
+		ArrayDeque<ByteBuffer>[] cache = cache();
+		ByteBuffer buffer = cache == null ? null : cache[sizeClass].pollFirst();
+		if (buffer == null)
+			buffer = shared[sizeClass].poll();
+		if (buffer == null)
+			buffer = ByteBuffer.allocateDirect(1 << (sizeClass + minimumShift));
+		buffer.limit(capacity);
+		return buffer;
+	}
+
+	public void release(ByteBuffer buffer) {
+		int capacity = buffer.capacity();
+		if (!buffer.isDirect() || capacity > maximumSize
+				|| Integer.bitCount(capacity) != 1
+				|| capacity < 1 << minimumShift)
+			// Not one of ours, so left for the collector
+			return;
+
+		buffer.clear();
+		buffer.order(ByteOrder.BIG_ENDIAN);
+
+		int sizeClass = sizeClassOf(capacity);
+		ArrayDeque<ByteBuffer>[] cache = cache();
+		if (cache != null && cache[sizeClass].size() < cacheCapacity)
+			cache[sizeClass].addFirst(buffer);
+		else
+			shared[sizeClass].offer(buffer);
+	}
+
+	private ArrayDeque<ByteBuffer>[] cache() {
+		// Virtual threads are too many and too short-lived to cache for
+		if (VirtualThreads.isVirtual(Thread.currentThread()))
+			return null;
+		return caches.get();
+	}
+
+	private int sizeClassOf(int capacity) {
+		if (capacity <= 1 << minimumShift)
+			return 0;
+		return 32 - Integer.numberOfLeadingZeros(capacity - 1) - minimumShift;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package mint.network.packet;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CompositePacketWriter implements PacketWriter {
+
+	private final ByteBufferPool pool;
+	private final int maximumChunkSize;
+
+	private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+	private ByteBuffer chunk;
+	private NIOPacketWriter chunkWriter;
+
+	private boolean bitAccess;
+	private long bits;
+	private int bitCount;
+
+	public CompositePacketWriter(ByteBufferPool pool, int initialChunkSize,
+			int maximumChunkSize) {
+		if (initialChunkSize < 1 || maximumChunkSize < initialChunkSize)
+			throw new IllegalArgumentException(
+					"Chunk sizes must be positive, initial first");
+		this.pool = pool;
+		this.maximumChunkSize = maximumChunkSize;
+		addChunk(initialChunkSize);
+	}
+
+	public CompositePacketWriter(int initialChunkSize) {
+		this(ByteBufferPool.shared(), initialChunkSize, 64 * 1024);
+	}
+
+	public CompositePacketWriter() {
+		this(256);
+	}
+
+	public int getLength() {
+		int length = 0;
+		for (ByteBuffer chunk : chunks)
+			length += chunk.position();
+		return length;
+	}
+
+	public ByteBuffer[] getBuffers() {
+		ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = chunks.get(i).duplicate();
+			buffers[i].flip();
+		}
+		return buffers;
+	}
+
+	public void release() {
+		for (ByteBuffer chunk : chunks)
+			pool.release(chunk);
+		chunks.clear();
+		chunk = null;
+		chunkWriter = null;
+	}
+
+	@Override
+	public void write(int value) {
+		ensure(1).write(value);
+	}
+
+	@Override
+	public void writeBoolean(boolean value) {
+		ensure(1).writeBoolean(value);
+	}
+
+	@Override
+	public void writeByte(byte value) {
+		ensure(1).writeByte(value);
+	}
+
+	@Override
+	public void writeChar(char value) {
+		ensure(2).writeChar(value);
+	}
+
+	@Override
+	public void writeShort(short value) {
+		ensure(2).writeShort(value);
+	}
+
+	@Override
+	public void writeInt(int value) {
+		ensure(4).writeInt(value);
+	}
+
+	@Override
+	public void writeLong(long value) {
+		ensure(8).writeLong(value);
+	}
+
+	@Override
+	public void writeVarInt(int value) {
+		ensure(5).writeVarInt(value);
+	}
+
+	@Override
+	public void writeVarLong(long value) {
+		ensure(10).writeVarLong(value);
+	}
+
+	@Override
+	public void writeSignedVarInt(int value) {
+		ensure(5).writeSignedVarInt(value);
+	}
+
+	@Override
+	public void writeSignedVarLong(long value) {
+		ensure(10).writeSignedVarLong(value);
+	}
+
+	@Override
+	public void writeFloat(float value) {
+		ensure(4).writeFloat(value);
+	}
+
+	@Override
+	public void writeDouble(double value) {
+		ensure(8).writeDouble(value);
+	}
+
+	@Override
+	public void writeString(String value) {
+		int length = StringCodec.utf8Length(value);
+		ensure(4 + length).writeString(value, length);
+	}
+
+	@Override
+	public void startBitAccess() {
+		if (bitAccess)
+			throw new IllegalStateException("Already in bit access mode");
+		bitAccess = true;
+	}
+
+	@Override
+	public void writeBit(boolean value) {
+		writeBits(1, value ? 1 : 0);
+	}
+
+	@Override
+	public void writeBits(int count, int value) {
+		if (!bitAccess)
+			throw new IllegalStateException("Not in bit access mode");
+		if (count < 1 || count > 32)
+			throw new IllegalArgumentException("Bit count must be 1 to 32: "
+					+ count);
+
+		// Bits are packed here, as they may straddle chunks
+		bits = bits << count | value & (1L << count) - 1;
+		bitCount += count;
+		while (bitCount >= 8) {
+			bitCount -= 8;
+			reserve(1).write((int) (bits >>> bitCount));
+		}
+	}
+
+	@Override
+	public void finishBitAccess() {
+		if (!bitAccess)
+			throw new IllegalStateException("Not in bit access mode");
+		if (bitCount > 0)
+			reserve(1).write((int) (bits << 8 - bitCount));
+		bits = 0;
+		bitCount = 0;
+		bitAccess = false;
+	}
+
+	private NIOPacketWriter ensure(int bytes) {
+		if (bitAccess)
+			throw new IllegalStateException("In bit access mode");
+		return reserve(bytes);
+	}
+
+	private NIOPacketWriter reserve(int bytes) {
+		if (chunk == null)
+			throw new IllegalStateException("The writer has been released");
+		if (chunk.remaining() < bytes)
+			// Chunks double in size, so few are needed for large packets
+			addChunk(Math.max(bytes, Math.min(chunk.capacity() << 1,
+					maximumChunkSize)));
+		return chunkWriter;
+	}
+
+	private void addChunk(int size) {
+		chunk = pool.acquire(size);
+		chunk.limit(chunk.capacity());
+		chunks.add(chunk);
+		chunkWriter = new NIOPacketWriter(chunk);
+	}
+
+}
@@ -1,17 +1,29 @@
 package mint.network.packet;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class NIOPacketBuffer implements PacketBuffer {
 
 	private final ByteBuffer backing;
+	private final ByteBufferPool pool;
+	private final AtomicInteger references = new AtomicInteger(1);
 
 	public NIOPacketBuffer(ByteBuffer backing) {
+		this(backing, null);
+	}
+
+	public NIOPacketBuffer(ByteBuffer backing, ByteBufferPool pool) {
 		this.backing = backing;
+		this.pool = pool;
+	}
+
+	public NIOPacketBuffer(int capacity, ByteBufferPool pool) {
+		this(pool.acquire(capacity), pool);
 	}
 
 	public NIOPacketBuffer(int capacity) {
-		this(ByteBuffer.allocate(capacity));
+		this(capacity, ByteBufferPool.shared());
 	}
 
 	public NIOPacketBuffer(byte[] data) {
@@ -26,4 +38,28 @@ public abstract class NIOPacketBuffer implements PacketBuffer {
 		return backing;
 	}
 
-}
\ No newline at end of file
+	public final int references() {
+		return references.get();
+	}
+
+	public final void retain() {
+		for (int count; (count = references.get()) > 0;)
+			if (references.compareAndSet(count, count + 1))
+				return;
+		throw new IllegalStateException("The buffer has been released");
+	}
+
+	public final boolean release() {
+		int count = references.decrementAndGet();
+		if (count < 0) {
+			references.incrementAndGet();
+			throw new IllegalStateException("The buffer has been released");
+		}
+		if (count > 0)
+			return false;
+		if (pool != null)
+			pool.release(backing);
+		return true;
+	}
+
+}
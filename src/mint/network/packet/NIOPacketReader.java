@@ -5,6 +5,12 @@ import java.nio.ByteBuffer;
 public final class NIOPacketReader extends NIOPacketBuffer implements
 		PacketReader {
 
+	private StringCache stringCache;
+
+	private boolean bitAccess;
+	private long bits;
+	private int bitCount;
+
 	public NIOPacketReader(ByteBuffer backing) {
 		super(backing);
 	}
@@ -13,12 +19,20 @@ public final class NIOPacketReader extends NIOPacketBuffer implements
 		super(capacity);
 	}
 
+	public NIOPacketReader(ByteBuffer backing, ByteBufferPool pool) {
+		super(backing, pool);
+	}
+
+	public NIOPacketReader(int capacity, ByteBufferPool pool) {
+		super(capacity, pool);
+	}
+
 	public NIOPacketReader(byte[] data) {
-		super(data);
+		super(ByteBuffer.wrap(data));
 	}
 
 	public NIOPacketReader(Packet packet) {
-		super(packet);
+		super(backingOf(packet));
 	}
 
 	@Override
@@ -33,45 +47,172 @@ public final class NIOPacketReader extends NIOPacketBuffer implements
 
 	@Override
 	public byte readByte() {
+		checkByteAccess();
 		return getBacking().get();
 	}
 
 	@Override
 	public char readChar() {
+		checkByteAccess();
 		return getBacking().getChar();
 	}
 
 	@Override
 	public short readShort() {
+		checkByteAccess();
 		return getBacking().getShort();
 	}
 
 	@Override
 	public int readInt() {
+		checkByteAccess();
 		return getBacking().getInt();
 	}
 
 	@Override
 	public long readLong() {
+		checkByteAccess();
 		return getBacking().getLong();
 	}
 
+	@Override
+	public int readVarInt() {
+		checkByteAccess();
+		ByteBuffer backing = getBacking();
+		int value = backing.get();
+		if (value >= 0)
+			return value;
+		value &= 0x7F;
+
+		int next = backing.get();
+		value |= (next & 0x7F) << 7;
+		if (next >= 0)
+			return value;
+		next = backing.get();
+		value |= (next & 0x7F) << 14;
+		if (next >= 0)
+			return value;
+		next = backing.get();
+		value |= (next & 0x7F) << 21;
+		if (next >= 0)
+			return value;
+		next = backing.get();
+		if ((next & 0xF0) != 0)
+			throw new IllegalStateException("Malformed variable-length int");
+		return value | next << 28;
+	}
+
+	@Override
+	public long readVarLong() {
+		checkByteAccess();
+		ByteBuffer backing = getBacking();
+		long value = backing.get();
+		if (value >= 0)
+			return value;
+		value &= 0x7F;
+
+		for (int shift = 7; shift < 64; shift += 7) {
+			byte next = backing.get();
+			value |= (long) (next & 0x7F) << shift;
+			if (next >= 0)
+				return value;
+		}
+		throw new IllegalStateException("Malformed variable-length long");
+	}
+
+	@Override
+	public int readSignedVarInt() {
+		int value = readVarInt();
+		return value >>> 1 ^ -(value & 1);
+	}
+
+	@Override
+	public long readSignedVarLong() {
+		long value = readVarLong();
+		return value >>> 1 ^ -(value & 1);
+	}
+
 	@Override
 	public float readFloat() {
+		checkByteAccess();
 		return getBacking().getFloat();
 	}
 
 	@Override
 	public double readDouble() {
+		checkByteAccess();
 		return getBacking().getDouble();
 	}
 
+	public ByteBuffer readSlice(int length) {
+		checkByteAccess();
+		ByteBuffer backing = getBacking();
+		ByteBuffer slice = backing.slice();
+		slice.limit(length);
+		backing.position(backing.position() + length);
+		return slice;
+	}
+
 	@Override
 	public String readString() {
-		StringBuilder builder = new StringBuilder();
-		for (int i = 0; i < readInt(); i++)
-			builder.append(readChar());
-		return builder.toString();
+		checkByteAccess();
+		return StringCodec.read(getBacking(), stringCache);
+	}
+
+	public void setStringCache(StringCache stringCache) {
+		this.stringCache = stringCache;
+	}
+
+	@Override
+	public void startBitAccess() {
+		if (bitAccess)
+			throw new IllegalStateException("Already in bit access mode");
+		bitAccess = true;
+	}
+
+	@Override
+	public boolean readBit() {
+		return readBits(1) != 0;
+	}
+
+	@Override
+	public int readBits(int count) {
+		if (!bitAccess)
+			throw new IllegalStateException("Not in bit access mode");
+		if (count < 1 || count > 32)
+			throw new IllegalArgumentException("Bit count must be 1 to 32: "
+					+ count);
+
+		ByteBuffer backing = getBacking();
+		while (bitCount < count) {
+			bits = bits << 8 | backing.get() & 0xFF;
+			bitCount += 8;
+		}
+		bitCount -= count;
+		return (int) (bits >>> bitCount & (1L << count) - 1);
+	}
+
+	@Override
+	public void finishBitAccess() {
+		if (!bitAccess)
+			throw new IllegalStateException("Not in bit access mode");
+		// The rest of the last byte read is padding
+		bits = 0;
+		bitCount = 0;
+		bitAccess = false;
+	}
+
+	private static ByteBuffer backingOf(Packet packet) {
+		// Buffer packets are read in place rather than copied
+		if (packet instanceof BufferPacket)
+			return ((BufferPacket) packet).getPayload();
+		// Read from the heap, as parsed readers are never released
+		return ByteBuffer.wrap(packet.getData());
+	}
+
+	private void checkByteAccess() {
+		if (bitAccess)
+			throw new IllegalStateException("In bit access mode");
 	}
 
 }
\ No newline at end of file
@@ -5,14 +5,26 @@ import java.nio.ByteBuffer;
 public final class NIOPacketWriter extends NIOPacketBuffer implements
 		PacketWriter {
 
+	private boolean bitAccess;
+	private long bits;
+	private int bitCount;
+
 	public NIOPacketWriter(ByteBuffer backing) {
 		super(backing);
 	}
 
+	public NIOPacketWriter(ByteBuffer backing, ByteBufferPool pool) {
+		super(backing, pool);
+	}
+
 	public NIOPacketWriter(int capacity) {
 		super(capacity);
 	}
 
+	public NIOPacketWriter(int capacity, ByteBufferPool pool) {
+		super(capacity, pool);
+	}
+
 	public NIOPacketWriter(byte[] data) {
 		super(data);
 	}
@@ -23,6 +35,7 @@ public final class NIOPacketWriter extends NIOPacketBuffer implements
 
 	@Override
 	public void write(int value) {
+		checkByteAccess();
 		getBacking().put((byte) value);
 	}
 
@@ -38,39 +51,147 @@ public final class NIOPacketWriter extends NIOPacketBuffer implements
 
 	@Override
 	public void writeChar(char value) {
+		checkByteAccess();
 		getBacking().putChar(value);
 	}
 
 	@Override
 	public void writeShort(short value) {
+		checkByteAccess();
 		getBacking().putShort(value);
 	}
 
 	@Override
 	public void writeInt(int value) {
+		checkByteAccess();
 		getBacking().putInt(value);
 	}
 
 	@Override
 	public void writeLong(long value) {
+		checkByteAccess();
 		getBacking().putLong(value);
 	}
 
+	@Override
+	public void writeVarInt(int value) {
+		checkByteAccess();
+		ByteBuffer backing = getBacking();
+		if ((value & ~0x7F) == 0)
+			backing.put((byte) value);
+		else if ((value & ~0x3FFF) == 0) {
+			backing.put((byte) (value | 0x80));
+			backing.put((byte) (value >>> 7));
+		} else if ((value & ~0x1FFFFF) == 0) {
+			backing.put((byte) (value | 0x80));
+			backing.put((byte) (value >>> 7 | 0x80));
+			backing.put((byte) (value >>> 14));
+		} else if ((value & ~0xFFFFFFF) == 0) {
+			backing.put((byte) (value | 0x80));
+			backing.put((byte) (value >>> 7 | 0x80));
+			backing.put((byte) (value >>> 14 | 0x80));
+			backing.put((byte) (value >>> 21));
+		} else {
+			backing.put((byte) (value | 0x80));
+			backing.put((byte) (value >>> 7 | 0x80));
+			backing.put((byte) (value >>> 14 | 0x80));
+			backing.put((byte) (value >>> 21 | 0x80));
+			backing.put((byte) (value >>> 28));
+		}
+	}
+
+	@Override
+	public void writeVarLong(long value) {
+		checkByteAccess();
+		if ((value & ~0xFFFFFFFL) == 0) {
+			writeVarInt((int) value);
+			return;
+		}
+		ByteBuffer backing = getBacking();
+		while ((value & ~0x7FL) != 0) {
+			backing.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		backing.put((byte) value);
+	}
+
+	@Override
+	public void writeSignedVarInt(int value) {
+		writeVarInt(value << 1 ^ value >> 31);
+	}
+
+	@Override
+	public void writeSignedVarLong(long value) {
+		writeVarLong(value << 1 ^ value >> 63);
+	}
+
 	@Override
 	public void writeFloat(float value) {
+		checkByteAccess();
 		getBacking().putFloat(value);
 	}
 
 	@Override
 	public void writeDouble(double value) {
+		checkByteAccess();
 		getBacking().putDouble(value);
 	}
 
 	@Override
 	public void writeString(String value) {
-		writeInt(value.length());
-		for (char c : value.toCharArray())
-			writeChar(c);
+		checkByteAccess();
+		StringCodec.write(getBacking(), value);
+	}
+
+	void writeString(String value, int utf8Length) {
+		checkByteAccess();
+		StringCodec.write(getBacking(), value, utf8Length);
+	}
+
+	@Override
+	public void startBitAccess() {
+		if (bitAccess)
+			throw new IllegalStateException("Already in bit access mode");
+		bitAccess = true;
+	}
+
+	@Override
+	public void writeBit(boolean value) {
+		writeBits(1, value ? 1 : 0);
+	}
+
+	@Override
+	public void writeBits(int count, int value) {
+		if (!bitAccess)
+			throw new IllegalStateException("Not in bit access mode");
+		if (count < 1 || count > 32)
+			throw new IllegalArgumentException("Bit count must be 1 to 32: "
+					+ count);
+
+		// Fewer than 8 bits are ever pending, so 40 at most fit in the long
+		bits = bits << count | value & (1L << count) - 1;
+		bitCount += count;
+		ByteBuffer backing = getBacking();
+		while (bitCount >= 8) {
+			bitCount -= 8;
+			backing.put((byte) (bits >>> bitCount));
+		}
+	}
+
+	@Override
+	public void finishBitAccess() {
+		if (!bitAccess)
+			throw new IllegalStateException("Not in bit access mode");
+		if (bitCount > 0)
+			getBacking().put((byte) (bits << 8 - bitCount));
+		bits = 0;
+		bitCount = 0;
+		bitAccess = false;
+	}
+
+	private void checkByteAccess() {
+		if (bitAccess)
+			throw new IllegalStateException("In bit access mode");
 	}
 
 }
\ No newline at end of file
@@ -16,10 +16,26 @@ public interface PacketReader {
 
 	long readLong();
 
+	int readVarInt();
+
+	long readVarLong();
+
+	int readSignedVarInt();
+
+	long readSignedVarLong();
+
 	float readFloat();
 
 	double readDouble();
 
 	String readString();
 
+	void startBitAccess();
+
+	boolean readBit();
+
+	int readBits(int count);
+
+	void finishBitAccess();
+
 }
\ No newline at end of file
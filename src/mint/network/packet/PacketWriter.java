@@ -16,10 +16,26 @@ public interface PacketWriter {
 
 	void writeLong(long value);
 
+	void writeVarInt(int value);
+
+	void writeVarLong(long value);
+
+	void writeSignedVarInt(int value);
+
+	void writeSignedVarLong(long value);
+
 	void writeFloat(float value);
 
 	void writeDouble(double value);
 
 	void writeString(String value);
 
+	void startBitAccess();
+
+	void writeBit(boolean value);
+
+	void writeBits(int count, int value);
+
+	void finishBitAccess();
+
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package mint.network.packet;
+
+import java.nio.ByteBuffer;
+
+public final class StringCache {
+
+	private final Entry[] entries;
+	private final int mask;
+	private final int maximumLength;
+
+	public StringCache(int capacity, int maximumLength) {
+		if (Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException(
+					"Capacity must be a power of two: " + capacity);
+		this.entries = new Entry[capacity];
+		this.mask = capacity - 1;
+		this.maximumLength = maximumLength;
+	}
+
+	public StringCache() {
+		this(1024, 32);
+	}
+
+	String get(ByteBuffer buffer, int length) {
+		if (length > maximumLength)
+			return StringCodec.decode(buffer, length);
+
+		int position = buffer.position();
+		int hash = 1;
+		for (int i = 0; i < length; i++)
+			hash = 31 * hash + buffer.get(position + i);
+		hash ^= hash >>> 16;
+
+		int index = hash & mask;
+		// Entries are immutable, so racing readers at worst miss
+		Entry entry = entries[index];
+		if (entry != null && entry.matches(buffer, position, length)) {
+			buffer.position(position + length);
+			return entry.value;
+		}
+
+		String value = StringCodec.decode(buffer, length);
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = buffer.get(position + i);
+		entries[index] = new Entry(bytes, value);
+		return value;
+	}
+
+	private static final class Entry {
+
+		private final byte[] bytes;
+		private final String value;
+
+		private Entry(byte[] bytes, String value) {
+			this.bytes = bytes;
+			this.value = value;
+		}
+
+		private boolean matches(ByteBuffer buffer, int position, int length) {
+			if (bytes.length != length)
+				return false;
+			for (int i = 0; i < length; i++)
+				if (bytes[i] != buffer.get(position + i))
+					return false;
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,125 @@
+package mint.network.packet;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import mint.NotConstructable;
+
+public final class StringCodec extends NotConstructable {
+
+	private static final Charset ASCII = Charset.forName("ISO-8859-1");
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public static int utf8Length(String value) {
+		int length = value.length();
+		int bytes = length;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x80) {
+				if (c < 0x800)
+					bytes++;
+				else if (Character.isHighSurrogate(c) && i + 1 < length
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					bytes += 2;
+					i++;
+				} else if (!Character.isSurrogate(c))
+					bytes += 2;
+			}
+		}
+		return bytes;
+	}
+
+	public static void write(ByteBuffer buffer, String value) {
+		write(buffer, value, utf8Length(value));
+	}
+
+	@SuppressWarnings("deprecation")
+	static void write(ByteBuffer buffer, String value, int utf8Length) {
+		int length = value.length();
+		if (buffer.remaining() < 4 + utf8Length)
+			throw new BufferOverflowException();
+		buffer.putInt(utf8Length);
+
+		int position = buffer.position();
+		int i = 0;
+		while (i < length && value.charAt(i) < 0x80)
+			i++;
+		if (buffer.hasArray()) {
+			// The leading ASCII chars, usually the whole string, are copied in
+			// bulk; getBytes keeps the low byte of each char, which is exact
+			value.getBytes(0, i, buffer.array(), buffer.arrayOffset()
+					+ position);
+			position += i;
+		} else
+			for (int j = 0; j < i; j++)
+				buffer.put(position++, (byte) value.charAt(j));
+
+		for (; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80)
+				buffer.put(position++, (byte) c);
+			else if (c < 0x800) {
+				buffer.put(position++, (byte) (0xC0 | c >> 6));
+				buffer.put(position++, (byte) (0x80 | c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				buffer.put(position++, (byte) (0xF0 | codePoint >> 18));
+				buffer.put(position++, (byte) (0x80 | codePoint >> 12 & 0x3F));
+				buffer.put(position++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+				buffer.put(position++, (byte) (0x80 | codePoint & 0x3F));
+			} else if (Character.isSurrogate(c))
+				// Unpaired surrogates are replaced, as String.getBytes does
+				buffer.put(position++, (byte) '?');
+			else {
+				buffer.put(position++, (byte) (0xE0 | c >> 12));
+				buffer.put(position++, (byte) (0x80 | c >> 6 & 0x3F));
+				buffer.put(position++, (byte) (0x80 | c & 0x3F));
+			}
+		}
+		buffer.position(position);
+	}
+
+	public static String read(ByteBuffer buffer, StringCache cache) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining())
+			throw new BufferUnderflowException();
+		if (cache != null)
+			return cache.get(buffer, length);
+		return decode(buffer, length);
+	}
+
+	public static String read(ByteBuffer buffer) {
+		return read(buffer, null);
+	}
+
+	static String decode(ByteBuffer buffer, int length) {
+		byte[] bytes;
+		int offset;
+		if (buffer.hasArray()) {
+			bytes = buffer.array();
+			offset = buffer.arrayOffset() + buffer.position();
+			buffer.position(buffer.position() + length);
+		} else {
+			bytes = new byte[length];
+			offset = 0;
+			buffer.get(bytes);
+		}
+		return new String(bytes, offset, length,
+				isAscii(bytes, offset, length) ? ASCII : UTF_8);
+	}
+
+	private static boolean isAscii(byte[] bytes, int offset, int length) {
+		for (int i = offset, end = offset + length; i < end; i++)
+			if (bytes[i] < 0)
+				return false;
+		return true;
+	}
+
+	private StringCodec() {
+		super();
+	}
+
+}